@@ -0,0 +1,45 @@
+package com.io.tedtalk.batch;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands every row to a pool of parser threads and returns immediately with a {@link Future}. The queue in front of
+ * the pool is bounded; when it is full the reading thread parses the row itself, which throttles the reader.
+ * {@link AsyncCsvRowWriter} resolves the futures in read order, so row errors stay in row order.
+ */
+@Component
+public class AsyncCsvRowProcessor implements ItemProcessor<CsvRow, Future<CsvRowResult>> {
+
+    private final CsvRowProcessor csvRowProcessor;
+    private final ExecutorService parserPool;
+
+    public AsyncCsvRowProcessor(CsvRowProcessor csvRowProcessor,
+                                @Value("${tedtalk.import.parser-threads}") int parserThreads,
+                                @Value("${tedtalk.import.parser-queue-capacity}") int queueCapacity) {
+        int threads = parserThreads > 0 ? parserThreads : Runtime.getRuntime().availableProcessors();
+        this.csvRowProcessor = csvRowProcessor;
+        this.parserPool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("csv-parser-", 0).daemon().factory(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @Override
+    public Future<CsvRowResult> process(CsvRow row) {
+        return parserPool.submit(() -> csvRowProcessor.process(row));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        parserPool.shutdown();
+    }
+}
@@ -0,0 +1,33 @@
+package com.io.tedtalk.batch;
+
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Waits for the rows parsed by {@link AsyncCsvRowProcessor} in read order and passes them to the delegate writer,
+ * which runs on the step thread inside the chunk transaction.
+ */
+public class AsyncCsvRowWriter implements ItemWriter<Future<CsvRowResult>> {
+
+    private final ItemWriter<CsvRowResult> delegate;
+
+    public AsyncCsvRowWriter(ItemWriter<CsvRowResult> delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void write(Chunk<? extends Future<CsvRowResult>> chunk) throws Exception {
+        Chunk<CsvRowResult> rows = new Chunk<>();
+        for (Future<CsvRowResult> future : chunk) {
+            try {
+                rows.add(future.get());
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception cause ? cause : e;
+            }
+        }
+        delegate.write(rows);
+    }
+}
@@ -0,0 +1,106 @@
+package com.io.tedtalk.batch;
+
+import com.io.tedtalk.dto.ImportFormat;
+import com.io.tedtalk.dto.ImportMode;
+import com.io.tedtalk.repository.TedTalkRepository;
+import com.io.tedtalk.service.TalkCache;
+import com.io.tedtalk.service.TalkSearchIndex;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.launch.support.TaskExecutorJobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.util.concurrent.Future;
+
+/**
+ * Chunk-oriented CSV import job: {@link MappedCsvItemReader} (or {@link TedTalkCsvItemReader} for compressed files)
+ * -> {@link CsvRowProcessor} -> {@link TedTalkImportWriter}. Each chunk is committed together with the reader position, so a failed import can be restarted and
+ * resumes after the last committed chunk. Reading and writing stay on the step thread; rows are validated
+ * in parallel by {@link AsyncCsvRowProcessor}.
+ */
+@Configuration
+public class CsvImportJobConfig {
+
+    public static final String JOB_NAME = "tedTalkImportJob";
+    public static final String FILE_PARAMETER = "file";
+    public static final String MODE_PARAMETER = "mode";
+    public static final String ERROR_FILE_PARAMETER = "errorFile";
+    public static final String ASYNC_JOB_LAUNCHER = "asyncJobLauncher";
+
+    @Bean
+    public Job tedTalkImportJob(JobRepository jobRepository, Step tedTalkImportStep,
+                                @Value("${tedtalk.import.staging-dir}") Path stagingDir) {
+        return new JobBuilder(JOB_NAME, jobRepository)
+                .start(tedTalkImportStep)
+                .listener(new StagedFileCleanupListener(stagingDir))
+                .build();
+    }
+
+    /**
+     * Launches imports on their own virtual thread and returns immediately, so uploads do not hold a request
+     * thread for the duration of the import. The default {@code jobLauncher} stays synchronous.
+     */
+    @Bean(ASYNC_JOB_LAUNCHER)
+    public JobLauncher asyncJobLauncher(JobRepository jobRepository) throws Exception {
+        SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor("csv-import-");
+        taskExecutor.setVirtualThreads(true);
+        TaskExecutorJobLauncher jobLauncher = new TaskExecutorJobLauncher();
+        jobLauncher.setJobRepository(jobRepository);
+        jobLauncher.setTaskExecutor(taskExecutor);
+        jobLauncher.afterPropertiesSet();
+        return jobLauncher;
+    }
+
+    @Bean
+    public Step tedTalkImportStep(JobRepository jobRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  ItemStreamReader<CsvRow> tedTalkCsvReader,
+                                  AsyncCsvRowProcessor asyncCsvRowProcessor,
+                                  TedTalkImportWriter tedTalkImportWriter,
+                                  @Value("${tedtalk.import.chunk-size}") int chunkSize) {
+        return new StepBuilder("tedTalkImportStep", jobRepository)
+                .<CsvRow, Future<CsvRowResult>>chunk(chunkSize, transactionManager)
+                .reader(tedTalkCsvReader)
+                .processor(asyncCsvRowProcessor)
+                .writer(new AsyncCsvRowWriter(tedTalkImportWriter))
+                .stream(tedTalkImportWriter)
+                .build();
+    }
+
+    @Bean
+    @StepScope
+    public ItemStreamReader<CsvRow> tedTalkCsvReader(@Value("#{jobParameters['" + FILE_PARAMETER + "']}") String file,
+                                                     @Value("${tedtalk.import.parser-threads}") int parserThreads,
+                                                     @Value("${tedtalk.import.segment-size}") DataSize segmentSize) {
+        Path path = Path.of(file);
+        int threads = parserThreads > 0 ? parserThreads : Runtime.getRuntime().availableProcessors();
+        // Compressed files can only be read from the start, and a single thread gains nothing from splitting
+        if (ImportFormat.fromFileName(path.getFileName().toString()) != ImportFormat.CSV || threads == 1) {
+            return new TedTalkCsvItemReader(path);
+        }
+        return new MappedCsvItemReader(path, segmentSize.toBytes(), threads);
+    }
+
+    @Bean
+    @StepScope
+    public TedTalkImportWriter tedTalkImportWriter(TedTalkRepository tedTalkRepository, TalkSearchIndex talkSearchIndex,
+                                                   TalkCache talkCache,
+                                                   @Value("#{stepExecution.jobParameters}") JobParameters jobParameters,
+                                                   @Value("#{jobParameters['" + MODE_PARAMETER + "'] ?: 'INSERT'}") ImportMode mode) {
+        return new TedTalkImportWriter(tedTalkRepository, talkSearchIndex, talkCache, ImportErrorFile.forJob(jobParameters),
+                mode);
+    }
+}
@@ -0,0 +1,20 @@
+package com.io.tedtalk.batch;
+
+/**
+ * A CSV record together with the 1-based line number it starts on (the header is row 1). {@code fields} is only
+ * populated when the record has the expected number of columns; blank rows have a column count of 0.
+ */
+public record CsvRow(int rowNumber, int columnCount, String[] fields) {
+
+    public static CsvRow blank(int rowNumber) {
+        return new CsvRow(rowNumber, 0, null);
+    }
+
+    public static CsvRow malformed(int rowNumber, int columnCount) {
+        return new CsvRow(rowNumber, columnCount, null);
+    }
+
+    public boolean isBlank() {
+        return columnCount == 0;
+    }
+}
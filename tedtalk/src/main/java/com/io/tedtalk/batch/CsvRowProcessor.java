@@ -0,0 +1,71 @@
+package com.io.tedtalk.batch;
+
+import com.io.tedtalk.model.TedTalk;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.stereotype.Component;
+
+import static com.io.tedtalk.dto.ImportErrorCode.*;
+import static com.io.tedtalk.util.TalkDecoder.*;
+
+/**
+ * Validates a tokenized CSV row. Rows are never filtered out: rejected rows are passed on to the
+ * writer so that all errors are reported in row order.
+ */
+@Component
+public class CsvRowProcessor implements ItemProcessor<CsvRow, CsvRowResult> {
+
+    static final String[] COLUMNS = {"title", "author", "date", "views", "likes", "link"};
+
+    @Override
+    public CsvRowResult process(CsvRow row) {
+        int rowNumber = row.rowNumber();
+
+        if (row.isBlank()) {
+            return CsvRowResult.rejected(rowNumber, EMPTY_ROW, null);
+        }
+
+        String[] cols = row.fields();
+        if (cols == null) {
+            return CsvRowResult.rejected(rowNumber, COLUMN_COUNT, null);
+        }
+
+        for (int i = 0; i < cols.length; i++) {
+            if (cols[i].isBlank()) {
+                return CsvRowResult.rejected(rowNumber, EMPTY_FIELD, COLUMNS[i]);
+            }
+        }
+
+        // Each field is validated and converted in one pass, nothing is parsed twice. NOT_AN_INT is negative as well,
+        // so one check also rejects negative counts, which the batched inserts do not validate on their own.
+        long views = decodeInt(cols[3]);
+        if (views < 0) {
+            return CsvRowResult.rejected(rowNumber, INVALID_INTEGER, "views");
+        }
+
+        long likes = decodeInt(cols[4]);
+        if (likes < 0) {
+            return CsvRowResult.rejected(rowNumber, INVALID_INTEGER, "likes");
+        }
+
+        int monthYear = decodeMonthYear(cols[2]);
+        if (monthYear == NOT_A_DATE || !isInYearRange(monthYear)) {
+            return CsvRowResult.rejected(rowNumber, INVALID_DATE, "date");
+        }
+
+        String link = cols[5];
+        if (!isHttpUrl(link)) {
+            return CsvRowResult.rejected(rowNumber, INVALID_URL, "link");
+        }
+
+        TedTalk talk = TedTalk.builder()
+                .title(cols[0])
+                .author(cols[1])
+                .month(month(monthYear))
+                .year(year(monthYear))
+                .views((int) views)
+                .likes((int) likes)
+                .link(link)
+                .build();
+        return CsvRowResult.accepted(rowNumber, talk);
+    }
+}
@@ -0,0 +1,23 @@
+package com.io.tedtalk.batch;
+
+import com.io.tedtalk.dto.ImportError;
+import com.io.tedtalk.dto.ImportErrorCode;
+import com.io.tedtalk.model.TedTalk;
+
+/**
+ * Outcome of validating a single CSV row: either a talk ready to be written or the reason it was rejected.
+ */
+public record CsvRowResult(int rowNumber, TedTalk talk, ImportError error) {
+
+    public static CsvRowResult accepted(int rowNumber, TedTalk talk) {
+        return new CsvRowResult(rowNumber, talk, null);
+    }
+
+    public static CsvRowResult rejected(int rowNumber, ImportErrorCode code, String column) {
+        return new CsvRowResult(rowNumber, null, new ImportError(rowNumber, code, column));
+    }
+
+    public boolean isRejected() {
+        return error != null;
+    }
+}
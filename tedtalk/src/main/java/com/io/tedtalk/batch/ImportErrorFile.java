@@ -0,0 +1,71 @@
+package com.io.tedtalk.batch;
+
+import com.io.tedtalk.dto.ImportError;
+import com.io.tedtalk.dto.ImportErrorCode;
+import org.springframework.batch.core.JobParameters;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.io.tedtalk.batch.CsvImportJobConfig.ERROR_FILE_PARAMETER;
+import static com.io.tedtalk.batch.CsvImportJobConfig.FILE_PARAMETER;
+
+/**
+ * Every rejected or skipped row of an import is appended to a spill file next to the staged upload, one
+ * {@code row,code,column} line per row, so that memory use does not depend on the number of errors. Imports of a
+ * local file, which is not staged, name their error file in the {@code errorFile} job parameter instead.
+ */
+public final class ImportErrorFile {
+
+    private ImportErrorFile() {
+    }
+
+    public static Path forStagedFile(String stagedFile) {
+        return Path.of(stagedFile + ".errors");
+    }
+
+    public static Path forJob(JobParameters jobParameters) {
+        String errorFile = jobParameters.getString(ERROR_FILE_PARAMETER);
+        return errorFile != null ? Path.of(errorFile) : forStagedFile(jobParameters.getString(FILE_PARAMETER));
+    }
+
+    static void append(StringBuilder out, ImportError error) {
+        out.append(error.row()).append(',').append(error.code().name()).append(',');
+        if (error.column() != null) {
+            out.append(error.column());
+        }
+        out.append('\n');
+    }
+
+    /**
+     * Reads up to {@code limit} errors starting at the given 0-based error index.
+     */
+    public static List<ImportError> read(Path errorFile, long offset, int limit) throws IOException {
+        List<ImportError> errors = new ArrayList<>();
+        if (limit <= 0 || !Files.exists(errorFile)) {
+            return errors;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(errorFile, StandardCharsets.UTF_8)) {
+            String line;
+            long index = 0;
+            while (errors.size() < limit && (line = reader.readLine()) != null) {
+                if (index++ < offset) {
+                    continue;
+                }
+                int first = line.indexOf(',');
+                int second = line.indexOf(',', first + 1);
+                String column = line.substring(second + 1);
+                errors.add(new ImportError(
+                        Integer.parseInt(line, 0, first, 10),
+                        ImportErrorCode.valueOf(line.substring(first + 1, second)),
+                        column.isEmpty() ? null : column));
+            }
+        }
+        return errors;
+    }
+}
@@ -0,0 +1,238 @@
+package com.io.tedtalk.batch;
+
+import com.io.tedtalk.util.CsvTokenizer;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Reads a plain CSV file through memory-mapped byte ranges that are tokenized in parallel. The file is split into
+ * segments of about {@code segmentSize} bytes, each ending just after a line feed; up to one segment per thread is
+ * parsed ahead of the step while the rows of the current one are handed out in file order. Row numbers are counted
+ * per segment and shifted by the lines of the segments before it, so they match {@link TedTalkCsvItemReader}.
+ * <p>
+ * A line feed inside a quoted field can still end a segment. The last record of such a segment runs into the end of
+ * the range inside quotes; the segment is then parsed again together with the ones after it, doubling the range
+ * until the record is complete.
+ */
+public class MappedCsvItemReader extends AbstractItemCountingItemStreamItemReader<CsvRow> {
+
+    private static final long MAP_WINDOW = 64L * 1024 * 1024;
+    private static final int PROBE_SIZE = 8 * 1024;
+
+    private final Path file;
+    private final long segmentSize;
+    private final int threads;
+    private final Deque<PendingSegment> pending = new ArrayDeque<>();
+    private FileChannel channel;
+    private ExecutorService executor;
+    private long size;
+    // End of the last segment handed to the executor
+    private long plannedEnd;
+
+    private List<CsvRow> rows = List.of();
+    private int nextRow;
+    // Lines before the current segment, and lines within it
+    private int lineOffset;
+    private int segmentLines;
+
+    private record Segment(List<CsvRow> rows, int lines, boolean unterminated) {
+    }
+
+    private record PendingSegment(long start, long end, Future<Segment> result) {
+    }
+
+    public MappedCsvItemReader(Path file, long segmentSize, int threads) {
+        this.file = file;
+        this.segmentSize = segmentSize;
+        this.threads = threads;
+        setName("tedTalkCsvReader");
+    }
+
+    @Override
+    protected void doOpen() throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        size = channel.size();
+        if (size == 0) {
+            throw new IllegalArgumentException("CSV header is missing or invalid.");
+        }
+        executor = Executors.newFixedThreadPool(threads, Thread.ofPlatform().name("csv-segment-", 0).daemon().factory());
+        plannedEnd = 0;
+        rows = List.of();
+        nextRow = 0;
+        lineOffset = 0;
+        segmentLines = 0;
+        fillWindow();
+    }
+
+    @Override
+    protected CsvRow doRead() throws Exception {
+        while (nextRow == rows.size()) {
+            if (!nextSegment()) {
+                return null;
+            }
+        }
+        CsvRow row = rows.get(nextRow++);
+        return lineOffset == 0 ? row : new CsvRow(lineOffset + row.rowNumber(), row.columnCount(), row.fields());
+    }
+
+    @Override
+    protected void doClose() throws IOException {
+        cancelPending();
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+        rows = List.of();
+    }
+
+    private boolean nextSegment() throws Exception {
+        lineOffset += segmentLines;
+        segmentLines = 0;
+        PendingSegment next = pending.poll();
+        if (next == null) {
+            return false;
+        }
+        Segment segment = await(next.result());
+        long end = next.end();
+        while (segment.unterminated() && end < size) {
+            // The segments parsed ahead started inside the quoted field, so they are parsed again as well
+            cancelPending();
+            end = lineStartAfter(end + (end - next.start()));
+            plannedEnd = end;
+            segment = parse(next.start(), end);
+        }
+        rows = segment.rows();
+        nextRow = 0;
+        segmentLines = segment.lines();
+        fillWindow();
+        return true;
+    }
+
+    private void fillWindow() throws IOException {
+        while (pending.size() <= threads && plannedEnd < size) {
+            long start = plannedEnd;
+            long end = lineStartAfter(start + segmentSize - 1);
+            pending.add(new PendingSegment(start, end, executor.submit(() -> parse(start, end))));
+            plannedEnd = end;
+        }
+    }
+
+    // Not interrupted: interrupting a thread reading the channel would close it
+    private void cancelPending() {
+        for (PendingSegment segment : pending) {
+            segment.result().cancel(false);
+        }
+        pending.clear();
+    }
+
+    // Row numbers of the segment are 1-based within the segment; the header is only checked in the first one.
+    private Segment parse(long start, long end) throws IOException {
+        CsvTokenizer tokenizer = new CsvTokenizer(
+                new InputStreamReader(new MappedInputStream(channel, start, end), StandardCharsets.UTF_8));
+        if (start == 0 && (!tokenizer.next() || !TedTalkCsvItemReader.isHeader(tokenizer))) {
+            throw new IllegalArgumentException("CSV header is missing or invalid.");
+        }
+        List<CsvRow> segmentRows = new ArrayList<>();
+        boolean unterminated = false;
+        while (tokenizer.next()) {
+            segmentRows.add(TedTalkCsvItemReader.toRow(tokenizer, tokenizer.lineNumber()));
+            unterminated = tokenizer.isUnterminated();
+        }
+        return new Segment(segmentRows, tokenizer.lineNumber() - 1, unterminated);
+    }
+
+    // The position just after the first line feed at or after the given position, or the end of the file. A line
+    // feed byte never occurs inside a multi-byte UTF-8 character.
+    private long lineStartAfter(long position) throws IOException {
+        ByteBuffer probe = ByteBuffer.allocate(PROBE_SIZE);
+        while (position < size) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static Segment await(Future<Segment> result) throws Exception {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    // Streams a byte range of the file through read-only mappings of at most MAP_WINDOW bytes, so the range is
+    // never copied onto the heap as a whole.
+    private static final class MappedInputStream extends InputStream {
+
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+        private ByteBuffer window = ByteBuffer.allocate(0);
+
+        private MappedInputStream(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return nextWindow() ? window.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (!nextWindow()) {
+                return -1;
+            }
+            int count = Math.min(length, window.remaining());
+            window.get(bytes, offset, count);
+            return count;
+        }
+
+        private boolean nextWindow() throws IOException {
+            if (window.hasRemaining()) {
+                return true;
+            }
+            if (position >= end) {
+                return false;
+            }
+            long length = Math.min(MAP_WINDOW, end - position);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            position += length;
+            return true;
+        }
+    }
+}
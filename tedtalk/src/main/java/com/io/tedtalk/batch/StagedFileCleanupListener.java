@@ -0,0 +1,41 @@
+package com.io.tedtalk.batch;
+
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static com.io.tedtalk.batch.CsvImportJobConfig.FILE_PARAMETER;
+
+/**
+ * Deletes the staged upload, and the file of stored talks matched by the import, once the import has completed.
+ * Failed and stopped imports keep them for a restart. Local files imported in place are outside the staging directory and are never deleted.
+ */
+public class StagedFileCleanupListener implements JobExecutionListener {
+
+    private final Path stagingDir;
+
+    public StagedFileCleanupListener(Path stagingDir) {
+        this.stagingDir = stagingDir.toAbsolutePath().normalize();
+    }
+
+    @Override
+    public void afterJob(JobExecution jobExecution) {
+        if (jobExecution.getStatus() != BatchStatus.COMPLETED) {
+            return;
+        }
+        Path file = Path.of(jobExecution.getJobParameters().getString(FILE_PARAMETER)).toAbsolutePath().normalize();
+        try {
+            Files.deleteIfExists(TedTalkImportWriter.matchedIdsFile(ImportErrorFile.forJob(jobExecution.getJobParameters())));
+            if (file.startsWith(stagingDir)) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
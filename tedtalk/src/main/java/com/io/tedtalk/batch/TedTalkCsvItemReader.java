@@ -0,0 +1,141 @@
+package com.io.tedtalk.batch;
+
+import com.io.tedtalk.dto.ImportFormat;
+import com.io.tedtalk.util.CsvTokenizer;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Reads the staged CSV file with a {@link CsvTokenizer}, skipping the header. Field strings are only created for
+ * records with the expected number of columns. The read count is saved with every chunk, so a restarted step
+ * skips the rows that were already committed.
+ * <p>
+ * Gzip and zip uploads are decompressed while they are read. The CSV files of a zip archive are read in archive
+ * order and numbered as if they were one file, headers included.
+ */
+public class TedTalkCsvItemReader extends AbstractItemCountingItemStreamItemReader<CsvRow> {
+
+    public static final int COLUMN_COUNT = 6;
+    public static final String HEADER = "title,author,date,views,likes,link";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path file;
+    private InputStream input;
+    private ZipInputStream zip;
+    private CsvTokenizer tokenizer;
+    // Row number of the last record read from the previous CSV files of a zip archive
+    private int rowOffset;
+    private int lastRowNumber;
+
+    public TedTalkCsvItemReader(Path file) {
+        this.file = file;
+        setName("tedTalkCsvReader");
+    }
+
+    /**
+     * Checks the header of a staged file, or of the first CSV file in a staged zip archive, before an import is
+     * started.
+     */
+    public static void checkHeader(Path file) throws IOException {
+        TedTalkCsvItemReader reader = new TedTalkCsvItemReader(file);
+        try {
+            reader.doOpen();
+        } finally {
+            reader.doClose();
+        }
+    }
+
+    @Override
+    protected void doOpen() throws IOException {
+        rowOffset = 0;
+        lastRowNumber = 0;
+        input = new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE);
+        switch (ImportFormat.fromFileName(file.getFileName().toString())) {
+            case CSV -> openCsv(input, null);
+            case GZIP -> openCsv(new GZIPInputStream(input, BUFFER_SIZE), null);
+            case ZIP -> {
+                zip = new ZipInputStream(input, StandardCharsets.UTF_8);
+                if (!nextZipEntry()) {
+                    throw new IllegalArgumentException("The zip file does not contain a CSV file.");
+                }
+            }
+        }
+    }
+
+    @Override
+    protected CsvRow doRead() throws Exception {
+        while (!tokenizer.next()) {
+            if (zip == null || !nextZipEntry()) {
+                return null;
+            }
+        }
+        lastRowNumber = rowOffset + tokenizer.lineNumber();
+        return toRow(tokenizer, lastRowNumber);
+    }
+
+    @Override
+    protected void doClose() throws IOException {
+        // Closing the underlying stream is enough; the tokenizers of zip entries must not close the archive
+        if (input != null) {
+            input.close();
+            input = null;
+        }
+        zip = null;
+        tokenizer = null;
+    }
+
+    private boolean nextZipEntry() throws IOException {
+        rowOffset = lastRowNumber;
+        ZipEntry entry;
+        while ((entry = zip.getNextEntry()) != null) {
+            if (!entry.isDirectory() && entry.getName().toLowerCase(Locale.ROOT).endsWith(".csv")) {
+                openCsv(zip, entry.getName());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Opens a CSV file and reads its header; the entry name is only given for the files of a zip archive.
+    private void openCsv(InputStream in, String entryName) throws IOException {
+        tokenizer = new CsvTokenizer(new InputStreamReader(in, StandardCharsets.UTF_8));
+        if (!tokenizer.next() || !isHeader(tokenizer)) {
+            throw new IllegalArgumentException("CSV header is missing or invalid"
+                    + (entryName == null ? "." : " in " + entryName + "."));
+        }
+        lastRowNumber = rowOffset + tokenizer.lineNumber();
+    }
+
+    static CsvRow toRow(CsvTokenizer tokenizer, int rowNumber) {
+        if (tokenizer.isBlankRecord()) {
+            return CsvRow.blank(rowNumber);
+        }
+        if (tokenizer.fieldCount() != COLUMN_COUNT) {
+            return CsvRow.malformed(rowNumber, tokenizer.fieldCount());
+        }
+        String[] fields = new String[COLUMN_COUNT];
+        for (int i = 0; i < COLUMN_COUNT; i++) {
+            fields[i] = tokenizer.field(i);
+        }
+        return new CsvRow(rowNumber, COLUMN_COUNT, fields);
+    }
+
+    static boolean isHeader(CsvTokenizer tokenizer) {
+        StringBuilder header = new StringBuilder();
+        for (int i = 0; i < tokenizer.fieldCount(); i++) {
+            header.append(i == 0 ? "" : ",").append(tokenizer.field(i).trim());
+        }
+        return header.toString().replace("\uFEFF", "").equalsIgnoreCase(HEADER);
+    }
+}
@@ -0,0 +1,344 @@
+package com.io.tedtalk.batch;
+
+import com.io.tedtalk.dto.ImportError;
+import com.io.tedtalk.dto.ImportMode;
+import com.io.tedtalk.dto.TalkLinkDTO;
+import com.io.tedtalk.dto.TalkTextDTO;
+import com.io.tedtalk.model.TedTalk;
+import com.io.tedtalk.repository.TedTalkRepository;
+import com.io.tedtalk.service.TalkCache;
+import com.io.tedtalk.service.TalkSearchIndex;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.io.tedtalk.dto.ImportErrorCode.DUPLICATE_IN_CSV;
+import static com.io.tedtalk.dto.ImportErrorCode.DUPLICATE_LINK;
+
+/**
+ * Writes one chunk of validated rows per transaction. Rows with a link that is already stored are skipped, or in
+ * {@link ImportMode#UPSERT} mode merged by link when they differ from the stored talk, so a refresh only writes the
+ * rows that changed. A link that occurs again later in the CSV is reported as a duplicate in the CSV, whether its
+ * first occurrence was inserted by this import or matched a stored talk; talks written by anyone else while the import
+ * runs are treated like any other stored talk. Counters are kept in the step execution context so that a restarted
+ * import continues counting from the last committed chunk. Rejected and skipped rows are appended to the
+ * {@link ImportErrorFile} when the chunk commits; the committed length of that file is saved as well, so a restart
+ * first truncates whatever a failed chunk left behind. The ids of the talks the import has inserted or matched are
+ * spilled to a file next to it in the same way.
+ */
+public class TedTalkImportWriter implements ItemWriter<CsvRowResult>, ItemStream {
+
+    public static final String IMPORTED_KEY = "import.imported";
+    public static final String UPDATED_KEY = "import.updated";
+    public static final String UNCHANGED_KEY = "import.unchanged";
+    public static final String SKIPPED_KEY = "import.skipped";
+    public static final String ERRORS_KEY = "import.errors";
+    private static final String ERROR_FILE_LENGTH_KEY = "import.errorFileLength";
+    private static final String MATCHED_IDS_FILE_LENGTH_KEY = "import.matchedIdsFileLength";
+    private static final int MATCHED_IDS_BLOCK_BITS = 16;
+
+    private final TedTalkRepository tedTalkRepository;
+    private final TalkSearchIndex talkSearchIndex;
+    private final TalkCache talkCache;
+    private final Path errorFile;
+    private final Path matchedIdsFile;
+    private final ImportMode mode;
+    private final List<ImportError> chunkErrors = new ArrayList<>();
+    private final StringBuilder errorLines = new StringBuilder();
+    private FileChannel errorChannel;
+    // Talks inserted or matched by a row of this import, so a later row with the same link is a duplicate in the CSV.
+    // Ids are split into blocks of MATCHED_IDS_BLOCK_BITS bits, so they are not limited to the int range.
+    private final Map<Long, BitSet> matchedIds = new HashMap<>();
+    private final List<Long> chunkMatchedIds = new ArrayList<>();
+    private FileChannel matchedIdsChannel;
+
+    private int imported;
+    private int updated;
+    private int unchanged;
+    private int skipped;
+    private int errors;
+
+    public TedTalkImportWriter(TedTalkRepository tedTalkRepository, TalkSearchIndex talkSearchIndex, TalkCache talkCache,
+                               Path errorFile, ImportMode mode) {
+        this.tedTalkRepository = tedTalkRepository;
+        this.talkSearchIndex = talkSearchIndex;
+        this.talkCache = talkCache;
+        this.errorFile = errorFile;
+        this.matchedIdsFile = matchedIdsFile(errorFile);
+        this.mode = mode;
+    }
+
+    /**
+     * The spill file of the stored talks an import has matched, kept until the import completes.
+     */
+    public static Path matchedIdsFile(Path errorFile) {
+        return errorFile.resolveSibling(errorFile.getFileName() + ".matched");
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) {
+        imported = executionContext.getInt(IMPORTED_KEY, 0);
+        updated = executionContext.getInt(UPDATED_KEY, 0);
+        unchanged = executionContext.getInt(UNCHANGED_KEY, 0);
+        skipped = executionContext.getInt(SKIPPED_KEY, 0);
+        errors = executionContext.getInt(ERRORS_KEY, 0);
+        try {
+            errorChannel = FileChannel.open(errorFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            long committedLength = executionContext.getLong(ERROR_FILE_LENGTH_KEY, 0L);
+            errorChannel.truncate(committedLength);
+            errorChannel.position(committedLength);
+        } catch (IOException e) {
+            throw new ItemStreamException("Could not open the import error file " + errorFile, e);
+        }
+        try {
+            matchedIdsChannel = FileChannel.open(matchedIdsFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            long committedLength = executionContext.getLong(MATCHED_IDS_FILE_LENGTH_KEY, 0L);
+            matchedIdsChannel.truncate(committedLength);
+            loadMatchedIds(committedLength);
+        } catch (IOException e) {
+            throw new ItemStreamException("Could not open the matched talks file " + matchedIdsFile, e);
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) {
+        executionContext.putInt(IMPORTED_KEY, imported);
+        executionContext.putInt(UPDATED_KEY, updated);
+        executionContext.putInt(UNCHANGED_KEY, unchanged);
+        executionContext.putInt(SKIPPED_KEY, skipped);
+        executionContext.putInt(ERRORS_KEY, errors);
+        executionContext.putLong(ERROR_FILE_LENGTH_KEY, flushChunkErrors());
+        executionContext.putLong(MATCHED_IDS_FILE_LENGTH_KEY, flushChunkMatchedIds());
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (errorChannel != null) {
+                errorChannel.close();
+                errorChannel = null;
+            }
+            if (matchedIdsChannel != null) {
+                matchedIdsChannel.close();
+                matchedIdsChannel = null;
+            }
+        } catch (IOException e) {
+            throw new ItemStreamException("Could not close the import error file " + errorFile, e);
+        }
+    }
+
+    @Override
+    public void write(Chunk<? extends CsvRowResult> chunk) {
+        Map<String, TedTalk> storedTalks = mode == ImportMode.UPSERT ? findStoredTalks(chunk) : Map.of();
+        Map<String, Long> existingIds = mode == ImportMode.UPSERT
+                ? storedTalks.values().stream().collect(Collectors.toMap(TedTalk::getLink, TedTalk::getId))
+                : findExistingIds(chunk);
+        List<TedTalk> talksToWrite = new ArrayList<>();
+        List<Long> updatedIds = new ArrayList<>();
+        Set<String> chunkLinks = new HashSet<>();
+        chunkErrors.clear();
+        chunkMatchedIds.clear();
+
+        for (CsvRowResult row : chunk) {
+            int rowNumber = row.rowNumber();
+            if (row.isRejected()) {
+                errors++;
+                chunkErrors.add(row.error());
+                continue;
+            }
+
+            String link = row.talk().getLink();
+            if (!chunkLinks.add(link)) {
+                errors++;
+                chunkErrors.add(new ImportError(rowNumber, DUPLICATE_IN_CSV, "link"));
+                continue;
+            }
+
+            // Check if link already exists
+            Long existingId = existingIds.get(link);
+            if (existingId != null) {
+                if (!markMatched(existingId)) {
+                    // Inserted or matched by an earlier chunk of this import
+                    errors++;
+                    chunkErrors.add(new ImportError(rowNumber, DUPLICATE_IN_CSV, "link"));
+                    continue;
+                }
+                if (mode == ImportMode.UPSERT) {
+                    if (hasChanged(storedTalks.get(link), row.talk())) {
+                        talksToWrite.add(row.talk());
+                        updatedIds.add(existingId);
+                    } else {
+                        unchanged++;
+                    }
+                } else {
+                    skipped++;
+                    chunkErrors.add(new ImportError(rowNumber, DUPLICATE_LINK, "link"));
+                }
+                continue;
+            }
+            talksToWrite.add(row.talk());
+        }
+
+        int written = mode == ImportMode.UPSERT
+                ? tedTalkRepository.upsertAll(talksToWrite)
+                : tedTalkRepository.insertAll(talksToWrite);
+        imported += written - updatedIds.size();
+        updated += updatedIds.size();
+        if (talksToWrite.isEmpty()) {
+            return;
+        }
+        List<TalkTextDTO> writtenTalks = tedTalkRepository.findTalkTextsByLinks(
+                talksToWrite.stream().map(TedTalk::getLink).toList());
+        writtenTalks.forEach(talk -> markMatched(talk.id()));
+        indexAfterCommit(writtenTalks, updatedIds);
+    }
+
+    // The written talks only become searchable, and cached copies stale, once the chunk has been committed.
+    private void indexAfterCommit(List<TalkTextDTO> written, List<Long> updatedIds) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                talkSearchIndex.indexAll(written);
+                talkCache.evictTalks(updatedIds);
+            }
+        });
+    }
+
+    // Appends the errors of the chunk about to be committed and returns the new length of the error file.
+    private long flushChunkErrors() {
+        try {
+            if (!chunkErrors.isEmpty()) {
+                errorLines.setLength(0);
+                for (ImportError error : chunkErrors) {
+                    ImportErrorFile.append(errorLines, error);
+                }
+                chunkErrors.clear();
+                ByteBuffer bytes = StandardCharsets.UTF_8.encode(errorLines.toString());
+                while (bytes.hasRemaining()) {
+                    errorChannel.write(bytes);
+                }
+            }
+            return errorChannel.position();
+        } catch (IOException e) {
+            throw new ItemStreamException("Could not write the import error file " + errorFile, e);
+        }
+    }
+
+    // Records a talk as inserted or matched by this import, to be spilled with the chunk; false if it already was.
+    private boolean markMatched(long id) {
+        if (!setMatched(id)) {
+            return false;
+        }
+        chunkMatchedIds.add(id);
+        return true;
+    }
+
+    private boolean setMatched(long id) {
+        BitSet block = matchedIds.computeIfAbsent(id >>> MATCHED_IDS_BLOCK_BITS, key -> new BitSet());
+        int bit = (int) (id & ((1L << MATCHED_IDS_BLOCK_BITS) - 1));
+        if (block.get(bit)) {
+            return false;
+        }
+        block.set(bit);
+        return true;
+    }
+
+    // Appends the talks inserted or matched by the chunk about to be committed and returns the new length of the file.
+    private long flushChunkMatchedIds() {
+        try {
+            if (!chunkMatchedIds.isEmpty()) {
+                ByteBuffer bytes = ByteBuffer.allocate(chunkMatchedIds.size() * Long.BYTES);
+                chunkMatchedIds.forEach(bytes::putLong);
+                chunkMatchedIds.clear();
+                bytes.flip();
+                while (bytes.hasRemaining()) {
+                    matchedIdsChannel.write(bytes, matchedIdsChannel.size());
+                }
+            }
+            return matchedIdsChannel.size();
+        } catch (IOException e) {
+            throw new ItemStreamException("Could not write the matched talks file " + matchedIdsFile, e);
+        }
+    }
+
+    private void loadMatchedIds(long length) throws IOException {
+        matchedIds.clear();
+        ByteBuffer bytes = ByteBuffer.allocate(64 * 1024);
+        long position = 0;
+        while (position < length) {
+            bytes.clear().limit((int) Math.min(bytes.capacity(), length - position));
+            int read = matchedIdsChannel.read(bytes, position);
+            if (read <= 0) {
+                break;
+            }
+            position += read;
+            bytes.flip();
+            while (bytes.remaining() >= Long.BYTES) {
+                setMatched(bytes.getLong());
+            }
+            // A partly read id is read again with the next block
+            position -= bytes.remaining();
+        }
+    }
+
+    private static boolean hasChanged(TedTalk stored, TedTalk row) {
+        return !Objects.equals(stored.getTitle(), row.getTitle())
+                || !Objects.equals(stored.getAuthor(), row.getAuthor())
+                || !Objects.equals(stored.getMonth(), row.getMonth())
+                || !Objects.equals(stored.getYear(), row.getYear())
+                || !Objects.equals(stored.getViews(), row.getViews())
+                || !Objects.equals(stored.getLikes(), row.getLikes());
+    }
+
+    // Resolves the links of the whole chunk with a single query.
+    private Map<String, Long> findExistingIds(Chunk<? extends CsvRowResult> chunk) {
+        Set<String> links = links(chunk);
+        if (links.isEmpty()) {
+            return Map.of();
+        }
+        return tedTalkRepository.findExistingLinks(links).stream()
+                .collect(Collectors.toMap(TalkLinkDTO::link, TalkLinkDTO::id));
+    }
+
+    // Loads the stored talks of the whole chunk with a single query, to compare them with the rows.
+    private Map<String, TedTalk> findStoredTalks(Chunk<? extends CsvRowResult> chunk) {
+        Set<String> links = links(chunk);
+        if (links.isEmpty()) {
+            return Map.of();
+        }
+        return tedTalkRepository.findByLinkIn(links).stream()
+                .collect(Collectors.toMap(TedTalk::getLink, Function.identity()));
+    }
+
+    private static Set<String> links(Chunk<? extends CsvRowResult> chunk) {
+        Set<String> links = new HashSet<>();
+        for (CsvRowResult row : chunk) {
+            if (!row.isRejected()) {
+                links.add(row.talk().getLink());
+            }
+        }
+        return links;
+    }
+}
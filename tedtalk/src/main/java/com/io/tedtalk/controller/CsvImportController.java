@@ -1,17 +1,26 @@
 package com.io.tedtalk.controller;
 
+import com.io.tedtalk.dto.ImportError;
+import com.io.tedtalk.dto.ImportFormat;
+import com.io.tedtalk.dto.ImportJobStatus;
+import com.io.tedtalk.dto.ImportMode;
 import com.io.tedtalk.dto.ImportResponse;
 import com.io.tedtalk.service.CsvImportService;
 import io.swagger.v3.oas.annotations.Operation;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
 
 @RestController
 @RequestMapping("/api/tedtalks")
@@ -22,14 +31,106 @@ public class CsvImportController {
 
     @Operation(
             summary = "Import TED Talks from a CSV file",
-            description = "Allows uploading a CSV file to import TED Talk data. Validates fields and handles errorCount."
+            description = "Allows uploading a CSV file (.csv, .csv.gz, or .zip holding several CSV files) to import TED Talk data. Validates fields and handles errorCount. With mode=UPSERT, rows whose link already exists overwrite the stored talk when their title, author, date, views or likes changed instead of being skipped."
     )
     @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<ImportResponse> importTedTalks(@RequestParam("file") MultipartFile file) throws Exception {
-        ImportResponse response = csvImportService.importTedTalksFromCsv(file);
+    public ResponseEntity<ImportResponse> importTedTalks(@RequestParam("file") MultipartFile file,
+                                                         @RequestParam(defaultValue = "INSERT") ImportMode mode) throws Exception {
+        ImportResponse response = csvImportService.importTedTalksFromCsv(file, mode);
         return ResponseEntity.ok(response);
     }
 
-}
+    @Operation(
+            summary = "Import TED Talks from a streamed request body",
+            description = "Imports a CSV file sent as the raw request body, which is not bounded by the multipart upload limit. Send text/csv, text/csv with Content-Encoding: gzip, application/gzip, or application/zip for an archive of CSV files."
+    )
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/gzip", "application/zip"})
+    public ResponseEntity<ImportResponse> importTedTalksFromBody(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                                 @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding,
+                                                                 @RequestParam(defaultValue = "INSERT") ImportMode mode,
+                                                                 InputStream body) throws Exception {
+        ImportFormat format = ImportFormat.fromContentType(contentType, contentEncoding);
+        return ResponseEntity.ok(csvImportService.importTedTalksFromCsv(body, format, mode));
+    }
 
+    @Operation(
+            summary = "Restart a failed CSV import",
+            description = "Resumes a failed or stopped import from the last committed chunk. The job execution id is reported in the error of the failed import."
+    )
+    @PostMapping("/import/{jobExecutionId}/restart")
+    public ResponseEntity<ImportResponse> restartImport(@PathVariable Long jobExecutionId) throws Exception {
+        return ResponseEntity.ok(csvImportService.restartImport(jobExecutionId));
+    }
 
+    @Operation(
+            summary = "Submit a CSV import job",
+            description = "Stages the uploaded CSV file and imports it in the background, in INSERT or UPSERT mode. Returns the job id to poll the progress with, or to cancel the import."
+    )
+    @PostMapping(value = "/import/jobs", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportJobStatus> submitImport(@RequestParam("file") MultipartFile file,
+                                                        @RequestParam(defaultValue = "INSERT") ImportMode mode) throws Exception {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(csvImportService.submitImport(file, mode));
+    }
+
+    @Operation(
+            summary = "Submit a CSV import job with a streamed request body",
+            description = "Stages a CSV file sent as the raw request body (text/csv, optionally with Content-Encoding: gzip, application/gzip or application/zip) and imports it in the background."
+    )
+    @PostMapping(value = "/import/jobs", consumes = {"text/csv", "application/gzip", "application/zip"})
+    public ResponseEntity<ImportJobStatus> submitImportFromBody(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                                @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding,
+                                                                @RequestParam(defaultValue = "INSERT") ImportMode mode,
+                                                                InputStream body) throws Exception {
+        ImportFormat format = ImportFormat.fromContentType(contentType, contentEncoding);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(csvImportService.submitImport(body, format, mode));
+    }
+
+    @Operation(
+            summary = "Import a CSV file from the server's disk",
+            description = "Admin import of a .csv, .csv.gz or .zip file below tedtalk.import.local-dir, given by its path relative to that directory. The file is read in place without an upload or a staged copy; plain CSV files are memory-mapped and parsed in parallel. Runs in the background and returns the job id to poll the progress with."
+    )
+    @PostMapping("/import/local")
+    public ResponseEntity<ImportJobStatus> submitLocalImport(@RequestParam String path,
+                                                             @RequestParam(defaultValue = "INSERT") ImportMode mode) throws Exception {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(csvImportService.submitLocalImport(path, mode));
+    }
+
+    @Operation(
+            summary = "Get the status of a CSV import job",
+            description = "Returns the state of the import with the rows read, imported, skipped and failed so far, and the throughput in rows per second."
+    )
+    @GetMapping("/import/jobs/{jobId}")
+    public ResponseEntity<ImportJobStatus> getImportStatus(@PathVariable Long jobId) throws IOException {
+        return ResponseEntity.ok(csvImportService.getImportStatus(jobId));
+    }
+
+    @Operation(
+            summary = "Cancel a running CSV import job",
+            description = "Stops the import after the chunk in progress. A cancelled import can be resumed with the restart endpoint."
+    )
+    @DeleteMapping("/import/jobs/{jobId}")
+    public ResponseEntity<ImportJobStatus> cancelImport(@PathVariable Long jobId) throws IOException {
+        return ResponseEntity.ok(csvImportService.cancelImport(jobId));
+    }
+
+    @Operation(
+            summary = "Page through the errors of a CSV import",
+            description = "Returns the rejected and skipped rows of an import in row order, starting at the given error offset. At most 10000 errors are returned per page."
+    )
+    @GetMapping("/import/jobs/{jobId}/errors")
+    public ResponseEntity<List<ImportError>> getImportErrors(@PathVariable Long jobId,
+                                                             @RequestParam(defaultValue = "0") long offset,
+                                                             @RequestParam(defaultValue = "1000") int limit) throws IOException {
+        return ResponseEntity.ok(csvImportService.getImportErrors(jobId, offset, limit));
+    }
+
+    @Operation(
+            summary = "Download all errors of a CSV import",
+            description = "Streams every rejected and skipped row of an import as CSV lines of row number, error code and column."
+    )
+    @GetMapping(value = "/import/jobs/{jobId}/errors/download", produces = "text/csv")
+    public ResponseEntity<Resource> downloadImportErrors(@PathVariable Long jobId) {
+        return ResponseEntity.ok(new FileSystemResource(csvImportService.getErrorFile(jobId)));
+    }
+
+}
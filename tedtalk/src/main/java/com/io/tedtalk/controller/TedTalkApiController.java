@@ -1,18 +1,31 @@
 package com.io.tedtalk.controller;
 
+import com.io.tedtalk.dto.BulkItemResultDTO;
+import com.io.tedtalk.dto.CompletionDTO;
+import com.io.tedtalk.dto.FuzzyAuthorDTO;
 import com.io.tedtalk.dto.InfluencerDTO;
 import com.io.tedtalk.dto.MostInfluentialSpeakerDTO;
+import com.io.tedtalk.dto.TalkStatsUpdateDTO;
+import com.io.tedtalk.dto.TalkStatsUpdateResultDTO;
+import com.io.tedtalk.dto.TedTalkBulkItemDTO;
+import com.io.tedtalk.dto.TedTalkPageDTO;
+import com.io.tedtalk.dto.TedTalkStatsIncrementDTO;
 import com.io.tedtalk.dto.TedTalkStatsUpdateDTO;
 import com.io.tedtalk.model.TedTalk;
 import com.io.tedtalk.service.TedTalkApiService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import java.time.Duration;
 import java.util.List;
 
 @RestController
@@ -21,12 +34,28 @@ import java.util.List;
 public class TedTalkApiController {
     private final TedTalkApiService tedTalkApiService;
 
+    // How long an export may stream before the request times out; zero never times out
+    @Value("${tedtalk.export.timeout}")
+    private Duration exportTimeout = Duration.ZERO;
+
     @Operation(summary = "Get all TED Talks",
-            description = "Retrieve a list of all TED Talks in the database. Returns a list of TED Talk objects.")
+            description = "Retrieve a page of TED Talks ordered by ID. Pass the returned nextCursor to fetch the next page; it is null on the last page. The page size is limited to 500.")
     @GetMapping
-    public ResponseEntity<List<TedTalk>> getAllTedTalks() {
-        List<TedTalk> talks = tedTalkApiService.getAllTedTalks();
-        return ResponseEntity.ok(talks);
+    public ResponseEntity<TedTalkPageDTO> getAllTedTalks(@RequestParam(required = false) String cursor,
+                                                         @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(tedTalkApiService.getAllTedTalks(cursor, size));
+    }
+
+    @Operation(summary = "Export all TED Talks",
+            description = "Streams every TED Talk ordered by ID as newline-delimited JSON, one talk per line. Talks are written while they are read from the database, so the export starts right away whatever the size of the table. The export runs as an async request with its own timeout (tedtalk.export.timeout, none by default) instead of the container's default async timeout.")
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public WebAsyncTask<Void> exportTedTalks(HttpServletResponse response) {
+        return new WebAsyncTask<>(exportTimeout.toMillis(), () -> {
+            response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+            tedTalkApiService.exportTedTalks(response.getOutputStream());
+            response.flushBuffer();
+            return null;
+        });
     }
 
     @Operation(summary = "Get TED Talk by ID",
@@ -63,36 +92,88 @@ public class TedTalkApiController {
         return ResponseEntity.noContent().build();
     }
 
+    @Operation(summary = "Create many TED Talks",
+            description = "Creates up to 10000 TED Talks in one transaction with batched inserts. Returns one result per talk, in request order: CREATED with the new ID, INVALID when a field is missing or fails the checks of the CSV import (an http or https link, a date like 'December 2021' between 1900 and 2100, views and likes not negative), or DUPLICATE_LINK when the link is already taken.")
+    @PostMapping("/bulk")
+    public ResponseEntity<List<BulkItemResultDTO>> createTedTalks(@RequestBody List<TedTalkBulkItemDTO> tedTalks) {
+        return ResponseEntity.ok(tedTalkApiService.createTedTalks(tedTalks));
+    }
+
+    @Operation(summary = "Create or update many TED Talks by link",
+            description = "Creates up to 10000 TED Talks, or overwrites the TED Talk with the same link, in one transaction with batched MERGE statements. Returns one result per talk, in request order: CREATED or UPDATED with the ID, INVALID when a field is missing or fails the checks of the CSV import, or DUPLICATE_LINK when the link was already used earlier in the request.")
+    @PutMapping("/bulk")
+    public ResponseEntity<List<BulkItemResultDTO>> upsertTedTalks(@RequestBody List<TedTalkBulkItemDTO> tedTalks) {
+        return ResponseEntity.ok(tedTalkApiService.upsertTedTalks(tedTalks));
+    }
+
+    @Operation(summary = "Delete many TED Talks by ID",
+            description = "Deletes up to 10000 TED Talks with a single DELETE in one transaction. Returns one result per ID, in request order: DELETED or NOT_FOUND.")
+    @DeleteMapping("/bulk")
+    public ResponseEntity<List<BulkItemResultDTO>> deleteTedTalks(@RequestBody List<Long> ids) {
+        return ResponseEntity.ok(tedTalkApiService.deleteTedTalks(ids));
+    }
+
     @Operation(summary = "Search TED Talks by author",
-            description = "Search for TED Talks by a specific author. The search returns all TED Talks where the author name contains the given text.")
+            description = "Search for TED Talks by a specific author. The search returns a page of TED Talks where the author name contains the given text, ordered by ID.")
     @GetMapping("/search/author")
-    public ResponseEntity<List<TedTalk>> searchByAuthor(@RequestParam String author) {
-        return ResponseEntity.ok(tedTalkApiService.searchByAuthor(author));
+    public ResponseEntity<TedTalkPageDTO> searchByAuthor(@RequestParam String author,
+                                                         @RequestParam(required = false) String cursor,
+                                                         @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(tedTalkApiService.searchByAuthor(author, cursor, size));
     }
 
     @Operation(summary = "Search TED Talks by title",
-            description = "Search for TED Talks by title. The search returns all TED Talks that contain the provided title substring.")
+            description = "Search for TED Talks by title. The search returns a page of TED Talks that contain the provided title substring, ordered by ID.")
     @GetMapping("/search/title")
-    public ResponseEntity<List<TedTalk>> searchByTitle(@RequestParam String title) {
-        return ResponseEntity.ok(tedTalkApiService.searchByTitle(title));
+    public ResponseEntity<TedTalkPageDTO> searchByTitle(@RequestParam String title,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(tedTalkApiService.searchByTitle(title, cursor, size));
+    }
+
+    @Operation(summary = "Typo-tolerant speaker search",
+            description = "Returns up to 10 speakers whose name is within maxDistance edits (0-3, Levenshtein, ignoring case) of the given name, closest first and then by influence (views + likes across their talks).")
+    @GetMapping("/search/author/fuzzy")
+    public ResponseEntity<List<FuzzyAuthorDTO>> searchByAuthorFuzzy(@RequestParam String author,
+                                                                    @RequestParam(defaultValue = "${tedtalk.search.fuzzy.max-distance:2}") int maxDistance,
+                                                                    @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(tedTalkApiService.searchByAuthorFuzzy(author, maxDistance, limit));
+    }
+
+    @Operation(summary = "Autocomplete speakers",
+            description = "Returns up to 10 speakers with a name part starting with the prefix, ignoring case, ranked by influence (views + likes across their talks).")
+    @GetMapping("/autocomplete/author")
+    public ResponseEntity<List<CompletionDTO>> autocompleteAuthor(@RequestParam String prefix,
+                                                                  @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(tedTalkApiService.autocompleteAuthor(prefix, limit));
+    }
+
+    @Operation(summary = "Autocomplete titles",
+            description = "Returns up to 10 titles with a word starting with the prefix, ignoring case, ranked by influence (views + likes).")
+    @GetMapping("/autocomplete/title")
+    public ResponseEntity<List<CompletionDTO>> autocompleteTitle(@RequestParam String prefix,
+                                                                 @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(tedTalkApiService.autocompleteTitle(prefix, limit));
     }
 
     @Operation(
             summary = "Get influential TED Talk speakers",
-            description = "Returns a ranked list of speakers based on total views and likes across all talks."
+            description = "Returns a ranked list of speakers based on total views and likes across all talks. Without a limit the whole ranking is returned; with a limit (at most 500) only that many speakers are returned, skipping the first offset of them. Only speakers with at least minTalks talks are ranked."
     )
     @GetMapping("/influencers")
-    public ResponseEntity<List<InfluencerDTO>> getInfluentialSpeakers() {
-        return ResponseEntity.ok(tedTalkApiService.getTopInfluentialSpeakers());
+    public ResponseEntity<List<InfluencerDTO>> getInfluentialSpeakers(@RequestParam(required = false) Integer limit,
+                                                                      @RequestParam(defaultValue = "0") int offset,
+                                                                      @RequestParam(defaultValue = "1") int minTalks) {
+        return ResponseEntity.ok(tedTalkApiService.getTopInfluentialSpeakers(limit, offset, minTalks));
     }
 
     @Operation(
             summary = "Get most influential TED Talk per year",
-            description = "Returns the single most influential talk per year, ranked by views + likes."
+            description = "Returns the perYear (default 1, at most 100) most influential talks of every year, ranked by views + likes; ties go to the talk added first."
     )
     @GetMapping("/influencers/per-year")
-    public ResponseEntity<List<MostInfluentialSpeakerDTO>> getMostInfluentialPerYear() {
-        return ResponseEntity.ok(tedTalkApiService.getMostInfluentialTalksPerYear());
+    public ResponseEntity<List<MostInfluentialSpeakerDTO>> getMostInfluentialPerYear(@RequestParam(defaultValue = "1") int perYear) {
+        return ResponseEntity.ok(tedTalkApiService.getMostInfluentialTalksPerYear(perYear));
     }
 
     @Operation(summary = "Update views and likes for a TedTalk")
@@ -103,5 +184,20 @@ public class TedTalkApiController {
                 .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body("TedTalk not found with ID " + id));
     }
 
+    @Operation(summary = "Update views and likes of many TedTalks",
+            description = "Sets the views and likes of up to 10000 talks in one transaction; a missing count is left unchanged. Returns for every entry whether its talk was found and updated.")
+    @PatchMapping("/stats")
+    public ResponseEntity<List<TalkStatsUpdateResultDTO>> updateStats(@RequestBody List<TalkStatsUpdateDTO> updates) {
+        return ResponseEntity.ok(tedTalkApiService.updateViewsAndLikes(updates));
+    }
+
+    @Operation(summary = "Add views and likes to a TedTalk",
+            description = "Adds the given numbers of views and likes. Increments are counted in memory and written to the database in batches every second, so concurrent increments are never lost. Increments that would push views or likes past 2147483647 are rejected with 400.")
+    @PostMapping("/{id}/stats/increments")
+    public ResponseEntity<Void> incrementStats(@PathVariable Long id, @RequestBody TedTalkStatsIncrementDTO dto) {
+        tedTalkApiService.incrementViewsAndLikes(id, dto);
+        return ResponseEntity.accepted().build();
+    }
+
 
 }
@@ -0,0 +1,3 @@
+package com.io.tedtalk.dto;
+
+public record BulkItemResultDTO(Long id, String link, BulkItemStatus status) {}
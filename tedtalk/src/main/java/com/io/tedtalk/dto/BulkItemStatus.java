@@ -0,0 +1,15 @@
+package com.io.tedtalk.dto;
+
+/**
+ * Outcome of one item of a bulk create, upsert or delete.
+ */
+public enum BulkItemStatus {
+    CREATED,
+    UPDATED,
+    DELETED,
+    NOT_FOUND,
+    // A required field is missing or a count is negative
+    INVALID,
+    // The link is already taken, by a stored talk or an earlier item of the same request
+    DUPLICATE_LINK
+}
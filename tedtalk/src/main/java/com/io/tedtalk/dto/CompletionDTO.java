@@ -0,0 +1,3 @@
+package com.io.tedtalk.dto;
+
+public record CompletionDTO(String text, long influenceScore) {}
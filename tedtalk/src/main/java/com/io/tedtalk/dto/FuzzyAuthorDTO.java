@@ -0,0 +1,3 @@
+package com.io.tedtalk.dto;
+
+public record FuzzyAuthorDTO(String author, int distance, long influenceScore) {}
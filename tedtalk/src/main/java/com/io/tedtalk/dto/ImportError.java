@@ -0,0 +1,14 @@
+package com.io.tedtalk.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * A rejected or skipped CSV row. {@code column} names the offending column where there is one.
+ */
+public record ImportError(int row, ImportErrorCode code, String column) {
+
+    @JsonProperty("message")
+    public String message() {
+        return code.describe(row, column);
+    }
+}
@@ -0,0 +1,25 @@
+package com.io.tedtalk.dto;
+
+/**
+ * Why a CSV row was not imported. {@link #DUPLICATE_LINK} rows are counted as skipped, all others as errors.
+ */
+public enum ImportErrorCode {
+    EMPTY_ROW("Empty row"),
+    COLUMN_COUNT("Expected 6 columns"),
+    EMPTY_FIELD("One or more fields are empty"),
+    INVALID_INTEGER("Invalid integer"),
+    INVALID_DATE("Invalid date format. Expected 'MMMM yyyy'"),
+    INVALID_URL("Invalid URL format"),
+    DUPLICATE_IN_CSV("Duplicate link in CSV"),
+    DUPLICATE_LINK("Skipped due to duplicate link");
+
+    private final String description;
+
+    ImportErrorCode(String description) {
+        this.description = description;
+    }
+
+    public String describe(int row, String column) {
+        return "Row " + row + ": " + description + (column == null ? "." : " (" + column + ").");
+    }
+}
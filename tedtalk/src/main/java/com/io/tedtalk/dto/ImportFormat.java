@@ -0,0 +1,68 @@
+package com.io.tedtalk.dto;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.util.Locale;
+
+/**
+ * Encoding of an uploaded import. Compressed uploads are staged as they are and only decompressed while they are
+ * read, so neither the upload nor the staged copy grows with the uncompressed size. A zip archive may hold several
+ * CSV files, each with its own header, which are imported one after the other.
+ */
+public enum ImportFormat {
+    CSV(".csv"),
+    GZIP(".csv.gz"),
+    ZIP(".zip");
+
+    private final String extension;
+
+    ImportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    /**
+     * The format of a {@code .csv}, {@code .csv.gz} or {@code .zip} file.
+     */
+    public static ImportFormat fromFileName(String fileName) {
+        String name = fileName == null ? "" : fileName.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        if (name.endsWith(".csv.gz") || name.endsWith(".gz")) {
+            return GZIP;
+        }
+        if (name.endsWith(".zip")) {
+            return ZIP;
+        }
+        throw new IllegalArgumentException("Only CSV, gzip-compressed CSV and zip files are supported.");
+    }
+
+    /**
+     * The format of a request body sent as {@code text/csv}, {@code application/gzip} or {@code application/zip}.
+     * A {@code text/csv} body with {@code Content-Encoding: gzip} is read as gzip-compressed CSV.
+     */
+    public static ImportFormat fromContentType(String contentType, String contentEncoding) {
+        MediaType mediaType;
+        try {
+            mediaType = MediaType.parseMediaType(contentType);
+        } catch (InvalidMediaTypeException e) {
+            throw new IllegalArgumentException("Invalid content type: " + contentType, e);
+        }
+        String subtype = mediaType.getSubtype().toLowerCase(Locale.ROOT);
+        if (subtype.equals("csv")) {
+            return "gzip".equalsIgnoreCase(contentEncoding) ? GZIP : CSV;
+        }
+        if (subtype.equals("gzip") || subtype.equals("x-gzip")) {
+            return GZIP;
+        }
+        if (subtype.equals("zip") || subtype.equals("x-zip-compressed")) {
+            return ZIP;
+        }
+        throw new IllegalArgumentException("Only text/csv, application/gzip and application/zip bodies are supported.");
+    }
+}
@@ -0,0 +1,20 @@
+package com.io.tedtalk.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record ImportJobStatus(
+        long jobId,
+        String status,
+        long rowsRead,
+        int importedCount,
+        int updatedCount,
+        int unchangedCount,
+        int skippedCount,
+        int errorCount,
+        double rowsPerSecond,
+        LocalDateTime startTime,
+        LocalDateTime endTime,
+        List<ImportError> errors,
+        boolean errorsTruncated
+) { }
@@ -0,0 +1,11 @@
+package com.io.tedtalk.dto;
+
+/**
+ * How an import treats rows whose link is already stored: {@link #INSERT} skips them as duplicates, {@link #UPSERT}
+ * overwrites the stored talk when its title, author, date, views or likes differ and leaves it alone otherwise. In
+ * both modes only the first row with a given link is applied; later rows with that link are duplicates in the CSV.
+ */
+public enum ImportMode {
+    INSERT,
+    UPSERT
+}
@@ -2,10 +2,17 @@ package com.io.tedtalk.dto;
 
 import java.util.List;
 
+/**
+ * Result of a synchronous import. {@code errors} holds the first rejected or skipped rows only; the full list can be
+ * paged through or downloaded with the job id.
+ */
 public record ImportResponse(
+            long jobId,
             int importedCount,
+            int updatedCount,
+            int unchangedCount,
             int skippedCount,
             int errorCount,
-            List<String> messages
+            List<ImportError> errors,
+            boolean errorsTruncated
     ) { }
-
@@ -0,0 +1,3 @@
+package com.io.tedtalk.dto;
+
+public record TalkLinkDTO(Long id, String link) {}
@@ -0,0 +1,3 @@
+package com.io.tedtalk.dto;
+
+public record TalkStatsDeltaDTO(long id, long views, long likes) {}
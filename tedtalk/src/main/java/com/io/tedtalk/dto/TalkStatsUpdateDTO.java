@@ -0,0 +1,10 @@
+package com.io.tedtalk.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public record TalkStatsUpdateDTO(
+        @NotNull Long id,
+        @Min(0) Integer views,
+        @Min(0) Integer likes
+) {}
@@ -0,0 +1,3 @@
+package com.io.tedtalk.dto;
+
+public record TalkStatsUpdateResultDTO(long id, boolean updated) {}
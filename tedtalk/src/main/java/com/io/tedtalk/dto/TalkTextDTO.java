@@ -0,0 +1,3 @@
+package com.io.tedtalk.dto;
+
+public record TalkTextDTO(Long id, String author, String title, Integer views, Integer likes) {}
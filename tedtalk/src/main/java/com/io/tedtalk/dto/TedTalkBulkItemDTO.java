@@ -0,0 +1,14 @@
+package com.io.tedtalk.dto;
+
+/**
+ * A talk in a bulk request. The date is kept as sent, like {@code December 2021}, so that an unreadable date only
+ * makes its own item invalid instead of failing the whole request.
+ */
+public record TedTalkBulkItemDTO(
+        String title,
+        String author,
+        String date,
+        Integer views,
+        Integer likes,
+        String link
+) {}
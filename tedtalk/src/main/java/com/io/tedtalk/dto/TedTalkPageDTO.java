@@ -0,0 +1,10 @@
+package com.io.tedtalk.dto;
+
+import com.io.tedtalk.model.TedTalk;
+
+import java.util.List;
+
+/**
+ * One page of talks in id order. {@code nextCursor} is {@code null} on the last page.
+ */
+public record TedTalkPageDTO(List<TedTalk> items, String nextCursor) {}
@@ -0,0 +1,8 @@
+package com.io.tedtalk.dto;
+
+import jakarta.validation.constraints.Min;
+
+public record TedTalkStatsIncrementDTO(
+        @Min(0) long views,
+        @Min(0) long likes
+) {}
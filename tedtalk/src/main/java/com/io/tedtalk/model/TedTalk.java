@@ -1,14 +1,18 @@
 package com.io.tedtalk.model;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
+import com.io.tedtalk.util.TalkDecoder;
 import jakarta.validation.constraints.*;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
-import java.util.Locale;
 import lombok.*;
+import org.hibernate.annotations.GeneratedColumn;
 
 @Entity
-@Table(name = "ted_talks")
+@Table(name = "ted_talks", indexes = {
+        @Index(name = "idx_ted_talks_author", columnList = "author"),
+        @Index(name = "idx_ted_talks_year", columnList = "`year`"),
+        @Index(name = "idx_ted_talks_year_influence", columnList = "`year`, influence_score")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -38,7 +42,7 @@ public class TedTalk {
     @JsonIgnore
     @NotNull(message = "year is required")
     @Column(name = "`year`", nullable = false)
-    @Min(1900) @Max(2100)  // Reasonable year constraints
+    @Min(TalkDecoder.MIN_YEAR) @Max(TalkDecoder.MAX_YEAR)  // Reasonable year constraints
     private Integer year;
 
     @NotNull(message = "view is required")
@@ -51,6 +55,12 @@ public class TedTalk {
     @Min(0)
     private Integer likes;
 
+    // views + likes, computed by the database so bulk inserts and updates cannot leave it behind
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @GeneratedColumn("CAST(views AS BIGINT) + likes")
+    @Column(name = "influence_score", insertable = false, updatable = false)
+    private Long influenceScore;
+
     @NotNull(message = "Link is required")
     @Column(nullable = false,unique = true)
     @NotBlank
@@ -68,9 +78,7 @@ public class TedTalk {
 
     // Combined date getter for convenience
     public String getDate() {
-        return DateTimeFormatter.ofPattern("MMMM")
-                .withLocale(Locale.ENGLISH)
-                .format(java.time.Month.of(month + 1)) + " " + year;
+        return TalkDecoder.monthName(month) + " " + year;
     }
 
     // Combined date setter that parses the date string
@@ -80,15 +88,13 @@ public class TedTalk {
 
     // Helper method to parse the date string into month and year
     private void parseDate(String date) {
-        try {
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMMM yyyy", Locale.ENGLISH);
-            if(!date.isEmpty()) {
-                java.time.YearMonth yearMonth = java.time.YearMonth.parse(date, formatter);
-                this.month = yearMonth.getMonthValue() - 1;  // Convert to 0-11 range
-                this.year = yearMonth.getYear();
+        if (!date.isEmpty()) {
+            int monthYear = TalkDecoder.decodeMonthYear(date);
+            if (monthYear == TalkDecoder.NOT_A_DATE) {
+                throw new IllegalArgumentException("Invalid date format. Expected format like 'December 2021'");
             }
-        } catch (DateTimeParseException e) {
-            throw new IllegalArgumentException("Invalid date format. Expected format like 'December 2021'", e);
+            this.month = TalkDecoder.month(monthYear);  // 0-11 range
+            this.year = TalkDecoder.year(monthYear);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.io.tedtalk.repository;
+
+import com.io.tedtalk.dto.TalkStatsDeltaDTO;
+import com.io.tedtalk.dto.TalkStatsUpdateDTO;
+import com.io.tedtalk.model.TedTalk;
+
+import java.util.List;
+
+/**
+ * Bulk write operations that bypass the persistence context. The IDENTITY id generation of {@link TedTalk}
+ * disables Hibernate's insert batching, so these go through JDBC batches directly.
+ */
+public interface TedTalkBulkRepository {
+
+    /**
+     * Inserts the talks in JDBC batches of {@code tedtalk.jdbc.batch-size} rows. Generated ids are not set on the
+     * given talks.
+     */
+    int insertAll(List<TedTalk> talks);
+
+    /**
+     * Inserts the talks, or overwrites the stored talk with the same link, with {@code MERGE ... KEY (link)} in JDBC
+     * batches of {@code tedtalk.jdbc.batch-size} rows. Ids are neither set on the given talks nor changed in the
+     * database.
+     */
+    int upsertAll(List<TedTalk> talks);
+
+    /**
+     * Adds views and likes to existing talks with {@code SET views = views + ?} in JDBC batches, all in one
+     * transaction. Deltas of talks that no longer exist are ignored.
+     */
+    void addStats(List<TalkStatsDeltaDTO> deltas);
+
+    /**
+     * Sets the views and likes of many talks in JDBC batches, all in one transaction. A {@code null} count is left
+     * unchanged. Returns the number of rows each update changed, in the order of the updates.
+     */
+    int[] updateStats(List<TalkStatsUpdateDTO> updates);
+}
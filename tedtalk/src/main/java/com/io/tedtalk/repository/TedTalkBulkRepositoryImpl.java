@@ -0,0 +1,85 @@
+package com.io.tedtalk.repository;
+
+import com.io.tedtalk.dto.TalkStatsDeltaDTO;
+import com.io.tedtalk.dto.TalkStatsUpdateDTO;
+import com.io.tedtalk.model.TedTalk;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.List;
+
+class TedTalkBulkRepositoryImpl implements TedTalkBulkRepository {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO ted_talks (title, author, "month", "year", views, likes, link)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String UPSERT_SQL = """
+            MERGE INTO ted_talks (title, author, "month", "year", views, likes, link) KEY (link)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String ADD_STATS_SQL = "UPDATE ted_talks SET views = views + ?, likes = likes + ? WHERE id = ?";
+
+    private static final String UPDATE_STATS_SQL =
+            "UPDATE ted_talks SET views = COALESCE(?, views), likes = COALESCE(?, likes) WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    TedTalkBulkRepositoryImpl(JdbcTemplate jdbcTemplate, @Value("${tedtalk.jdbc.batch-size}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public int insertAll(List<TedTalk> talks) {
+        return writeAll(INSERT_SQL, talks);
+    }
+
+    @Override
+    public int upsertAll(List<TedTalk> talks) {
+        return writeAll(UPSERT_SQL, talks);
+    }
+
+    @Override
+    @Transactional
+    public void addStats(List<TalkStatsDeltaDTO> deltas) {
+        jdbcTemplate.batchUpdate(ADD_STATS_SQL, deltas, batchSize, (ps, delta) -> {
+            ps.setLong(1, delta.views());
+            ps.setLong(2, delta.likes());
+            ps.setLong(3, delta.id());
+        });
+    }
+
+    @Override
+    @Transactional
+    public int[] updateStats(List<TalkStatsUpdateDTO> updates) {
+        int[][] batches = jdbcTemplate.batchUpdate(UPDATE_STATS_SQL, updates, batchSize, (ps, update) -> {
+            ps.setObject(1, update.views(), Types.INTEGER);
+            ps.setObject(2, update.likes(), Types.INTEGER);
+            ps.setLong(3, update.id());
+        });
+        return Arrays.stream(batches).flatMapToInt(Arrays::stream).toArray();
+    }
+
+    private int writeAll(String sql, List<TedTalk> talks) {
+        if (talks.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(sql, talks, batchSize, (ps, talk) -> {
+            ps.setString(1, talk.getTitle());
+            ps.setString(2, talk.getAuthor());
+            ps.setInt(3, talk.getMonth());
+            ps.setInt(4, talk.getYear());
+            ps.setInt(5, talk.getViews());
+            ps.setInt(6, talk.getLikes());
+            ps.setString(7, talk.getLink());
+        });
+        return talks.size();
+    }
+}
@@ -2,50 +2,78 @@ package com.io.tedtalk.repository;
 
 import com.io.tedtalk.dto.InfluencerDTO;
 import com.io.tedtalk.dto.MostInfluentialSpeakerDTO;
+import com.io.tedtalk.dto.TalkLinkDTO;
+import com.io.tedtalk.dto.TalkTextDTO;
 import com.io.tedtalk.model.TedTalk;
+import jakarta.persistence.QueryHint;
 import jakarta.validation.constraints.Min;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface TedTalkRepository extends JpaRepository<TedTalk, Long> {
-    List<TedTalk> findByAuthorContainingIgnoreCase(String author);
-    List<TedTalk> findByTitleContainingIgnoreCase(String title);
+public interface TedTalkRepository extends JpaRepository<TedTalk, Long>, TedTalkBulkRepository {
+    // Keyset pagination: each page continues after the last id of the previous one
+    List<TedTalk> findByIdGreaterThanOrderByIdAsc(long afterId, Limit limit);
+    List<TedTalk> findByIdInOrderByIdAsc(Collection<Long> ids);
     Optional<TedTalk> findByLink(String link);
+    List<TedTalk> findByLinkIn(Collection<String> links);
+
+    // Forward-only cursor for exports; the caller must consume it inside a transaction and close it
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<TedTalk> streamAllByOrderByIdAsc();
+
+    @Query("SELECT new com.io.tedtalk.dto.TalkLinkDTO(t.id, t.link) FROM TedTalk t WHERE t.link IN :links")
+    List<TalkLinkDTO> findExistingLinks(@Param("links") Collection<String> links);
+
+    @Query("SELECT t.id FROM TedTalk t WHERE t.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // Author and title of talks, for the search index
+    @Query("SELECT new com.io.tedtalk.dto.TalkTextDTO(t.id, t.author, t.title, t.views, t.likes) FROM TedTalk t WHERE t.id > :afterId ORDER BY t.id")
+    List<TalkTextDTO> findTalkTexts(@Param("afterId") long afterId, Limit limit);
+
+    @Query("SELECT new com.io.tedtalk.dto.TalkTextDTO(t.id, t.author, t.title, t.views, t.likes) FROM TedTalk t WHERE t.link IN :links")
+    List<TalkTextDTO> findTalkTextsByLinks(@Param("links") Collection<String> links);
+
     @Query("""
     SELECT new com.io.tedtalk.dto.InfluencerDTO(
         t.author,
         SUM(t.views),
         SUM(t.likes),
-        SUM(t.views + t.likes)
+        SUM(t.influenceScore)
     )
     FROM TedTalk t
     GROUP BY t.author
-    ORDER BY SUM(t.views + t.likes) DESC
+    ORDER BY SUM(t.influenceScore) DESC
 """)
     List<InfluencerDTO> findTopInfluentialSpeakers();
 
+    // Ranks the talks of every year in one pass over the (year, influence_score) index instead of a correlated MAX
+    // subquery per row
     @Query("""
-    SELECT new com.io.tedtalk.dto.MostInfluentialSpeakerDTO(
-        t.year,
-        t.author,
-        t.views,
-        t.likes,
-        (t.views + t.likes)
-    )
-    FROM TedTalk t
-    WHERE (t.views + t.likes) = (
-        SELECT MAX(t2.views + t2.likes)
-        FROM TedTalk t2
-        WHERE t2.year = t.year
-    )
-    GROUP BY t.year, t.author, t.views, t.likes
-    ORDER BY t.year ASC
+    SELECT new com.io.tedtalk.dto.MostInfluentialSpeakerDTO(r.talkYear, r.author, r.views, r.likes, r.influence)
+    FROM (
+        SELECT t.year AS talkYear, t.author AS author, t.views AS views, t.likes AS likes,
+               t.influenceScore AS influence,
+               ROW_NUMBER() OVER (PARTITION BY t.year ORDER BY t.influenceScore DESC, t.id ASC) AS yearRank
+        FROM TedTalk t
+    ) r
+    WHERE r.yearRank <= :perYear
+    ORDER BY r.talkYear ASC, r.yearRank ASC
 """)
-    List<MostInfluentialSpeakerDTO> findMostInfluentialTalksPerYear();
+    List<MostInfluentialSpeakerDTO> findMostInfluentialTalksPerYear(@Param("perYear") int perYear);
 
 }
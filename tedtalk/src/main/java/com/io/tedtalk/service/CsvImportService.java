@@ -1,136 +1,314 @@
 package com.io.tedtalk.service;
 
+import com.io.tedtalk.batch.ImportErrorFile;
+import com.io.tedtalk.batch.TedTalkCsvItemReader;
+import com.io.tedtalk.dto.ImportError;
+import com.io.tedtalk.dto.ImportFormat;
+import com.io.tedtalk.dto.ImportJobStatus;
+import com.io.tedtalk.dto.ImportMode;
 import com.io.tedtalk.dto.ImportResponse;
-import com.io.tedtalk.model.TedTalk;
-import com.io.tedtalk.repository.TedTalkRepository;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.launch.JobExecutionNotRunningException;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.launch.JobOperator;
+import org.springframework.batch.core.launch.NoSuchJobExecutionException;
+import org.springframework.batch.core.repository.JobInstanceAlreadyCompleteException;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.stream.Stream;
 
-import static com.io.tedtalk.util.Validate.*;
+import static com.io.tedtalk.batch.CsvImportJobConfig.ASYNC_JOB_LAUNCHER;
+import static com.io.tedtalk.batch.CsvImportJobConfig.ERROR_FILE_PARAMETER;
+import static com.io.tedtalk.batch.CsvImportJobConfig.FILE_PARAMETER;
+import static com.io.tedtalk.batch.CsvImportJobConfig.MODE_PARAMETER;
+import static com.io.tedtalk.batch.TedTalkImportWriter.*;
 
 @Service
 public class CsvImportService {
 
-    private final TedTalkRepository tedTalkRepository;
+    private static final int MAX_ERROR_PAGE_SIZE = 10_000;
 
-    public CsvImportService(TedTalkRepository tedTalkRepository) {
-        this.tedTalkRepository = tedTalkRepository;
+    private final JobLauncher jobLauncher;
+    private final JobLauncher asyncJobLauncher;
+    private final JobOperator jobOperator;
+    private final Job tedTalkImportJob;
+    private final JobExplorer jobExplorer;
+    private final Path stagingDir;
+    private final String localDir;
+    private final int errorSampleSize;
+    private final Duration errorFileRetention;
+
+    public CsvImportService(@Qualifier("jobLauncher") JobLauncher jobLauncher,
+                            @Qualifier(ASYNC_JOB_LAUNCHER) JobLauncher asyncJobLauncher,
+                            JobOperator jobOperator, Job tedTalkImportJob, JobExplorer jobExplorer,
+                            @Value("${tedtalk.import.staging-dir}") Path stagingDir,
+                            @Value("${tedtalk.import.local-dir:}") String localDir,
+                            @Value("${tedtalk.import.error-sample-size}") int errorSampleSize,
+                            @Value("${tedtalk.import.error-file-retention}") Duration errorFileRetention) {
+        this.jobLauncher = jobLauncher;
+        this.asyncJobLauncher = asyncJobLauncher;
+        this.jobOperator = jobOperator;
+        this.tedTalkImportJob = tedTalkImportJob;
+        this.jobExplorer = jobExplorer;
+        this.stagingDir = stagingDir;
+        this.localDir = localDir;
+        this.errorSampleSize = errorSampleSize;
+        this.errorFileRetention = errorFileRetention;
     }
 
 
     public ImportResponse importTedTalksFromCsv(MultipartFile file) throws Exception {
-        if (!Objects.requireNonNull(file.getOriginalFilename()).endsWith(".csv")) {
-            throw new IllegalArgumentException("Only CSV files are supported.");
-        }
+        return importTedTalksFromCsv(file, ImportMode.INSERT);
+    }
 
-        List<TedTalk> talksToInsert = new ArrayList<>();
-        List<String> messages = new ArrayList<>();
-        int skipped = 0;
-        int errors = 0;
-        Set<String> seenLinks = new HashSet<>();
-        int rowNumber = 1;
-
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream()))) {
-            String header = reader.readLine(); // Read header
-            if (header == null || !header.replace("\uFEFF", "").trim().equalsIgnoreCase("title,author,date,views,likes,link")) {
-                throw new IllegalArgumentException("CSV header is missing or invalid.");
-            }
+    public ImportResponse importTedTalksFromCsv(MultipartFile file, ImportMode mode) throws Exception {
+        return toResponse(jobLauncher.run(tedTalkImportJob, stageJobParameters(file, mode)));
+    }
 
-            String line;
-            while ((line = reader.readLine()) != null) {
-                rowNumber++;
+    /**
+     * Imports a CSV file streamed as the request body, so its size is not bounded by the multipart upload limit.
+     */
+    public ImportResponse importTedTalksFromCsv(InputStream body, ImportFormat format, ImportMode mode) throws Exception {
+        return toResponse(jobLauncher.run(tedTalkImportJob, stageJobParameters(body, format, mode)));
+    }
 
-                if (line.trim().isEmpty()) {
-                    errors++;
-                    messages.add("Row " + rowNumber + ": Empty row");
-                    continue;
-                }
+    public ImportJobStatus submitImport(MultipartFile file) throws Exception {
+        return submitImport(file, ImportMode.INSERT);
+    }
 
-                String[] cols = line.split(",", -1); // include empty strings
-                if (cols.length != 6) {
-                    errors++;
-                    messages.add("Row " + rowNumber + ": Expected 6 columns, but found " + cols.length);
-                    continue;
-                }
+    /**
+     * Starts the import in the background and returns its status right away. The job id can be used to poll
+     * the progress of the import or to cancel it.
+     */
+    public ImportJobStatus submitImport(MultipartFile file, ImportMode mode) throws Exception {
+        return toStatus(asyncJobLauncher.run(tedTalkImportJob, stageJobParameters(file, mode)));
+    }
 
-                String title = cols[0].trim();
-                String author = cols[1].trim();
-                String date = cols[2].trim();
-                String viewsStr = cols[3].trim();
-                String likesStr = cols[4].trim();
-                String link = cols[5].trim();
-
-                Optional<String> validationError = validateCsvRow(title, author, date, viewsStr, likesStr, link, rowNumber, seenLinks);
-                if (validationError.isPresent()) {
-                    errors++;
-                    messages.add(validationError.get());
-                    continue;
-                }
+    public ImportJobStatus submitImport(InputStream body, ImportFormat format, ImportMode mode) throws Exception {
+        return toStatus(asyncJobLauncher.run(tedTalkImportJob, stageJobParameters(body, format, mode)));
+    }
 
-                // Check if link already exists
-                if (tedTalkRepository.findByLink(link).isPresent()) {
-                    skipped++;
-                    messages.add("Row " + rowNumber + ": Skipped due to duplicate link.");
-                    continue;
-                }
-                    TedTalk talk = new TedTalk(
-                            title,
-                            author,
-                            date,
-                            Integer.parseInt(viewsStr),
-                            Integer.parseInt(likesStr),
-                            link
-                    );
-                    talksToInsert.add(talk);
+    /**
+     * Imports a file that is already on the server, below {@code tedtalk.import.local-dir}, in the background. The
+     * file is read in place: it is neither uploaded nor staged, and it is left where it is once the import completes.
+     * Plain CSV files are memory-mapped and parsed in parallel ranges.
+     */
+    public ImportJobStatus submitLocalImport(String path, ImportMode mode) throws Exception {
+        Path file = resolveLocalFile(path);
+        TedTalkCsvItemReader.checkHeader(file);
+        Files.createDirectories(stagingDir);
+        deleteExpiredErrorFiles();
+        JobParameters parameters = new JobParametersBuilder()
+                .addString(FILE_PARAMETER, file.toString())
+                .addString(ERROR_FILE_PARAMETER, stagingDir.resolve(UUID.randomUUID() + ".errors").toString())
+                .addString(MODE_PARAMETER, mode.name())
+                .toJobParameters();
+        return toStatus(asyncJobLauncher.run(tedTalkImportJob, parameters));
+    }
 
-            }
+    public ImportJobStatus getImportStatus(Long jobId) throws IOException {
+        return toStatus(getJobExecution(jobId));
+    }
 
-            tedTalkRepository.saveAll(talksToInsert);
-        } catch (IOException e) {
-            throw new IOException("Error reading the CSV file", e);
-        } catch (Exception e) {
-            throw new Exception("Error processing file, RowNumber at the time of error is : " + rowNumber, e);
+    /**
+     * Pages through all rejected and skipped rows of an import, in row order.
+     */
+    public List<ImportError> getImportErrors(Long jobId, long offset, int limit) throws IOException {
+        return ImportErrorFile.read(getErrorFile(jobId), offset, Math.min(limit, MAX_ERROR_PAGE_SIZE));
+    }
+
+    /**
+     * The file holding all rejected and skipped rows of an import, one {@code row,code,column} line each.
+     */
+    public Path getErrorFile(Long jobId) {
+        return ImportErrorFile.forJob(getJobExecution(jobId).getJobParameters());
+    }
+
+    /**
+     * Requests a running import to stop. The import stops after the chunk in progress has been committed and
+     * can be resumed later with {@link #restartImport(Long)}.
+     */
+    public ImportJobStatus cancelImport(Long jobId) throws IOException {
+        try {
+            jobOperator.stop(jobId);
+        } catch (NoSuchJobExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Import not found with job id: " + jobId);
+        } catch (JobExecutionNotRunningException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Import with job id " + jobId + " is not running.");
         }
+        return getImportStatus(jobId);
+    }
 
+    /**
+     * Restarts a failed or stopped import. Chunks committed by the previous run are not read again.
+     */
+    public ImportResponse restartImport(Long jobExecutionId) throws Exception {
+        JobExecution previous = jobExplorer.getJobExecution(jobExecutionId);
+        if (previous == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Import not found with job execution id: " + jobExecutionId);
+        }
+        try {
+            return toResponse(jobLauncher.run(tedTalkImportJob, previous.getJobParameters()));
+        } catch (JobInstanceAlreadyCompleteException e) {
+            throw new IllegalArgumentException("Import with job execution id " + jobExecutionId + " has already completed.", e);
+        }
+    }
 
-        return new ImportResponse(talksToInsert.size(), skipped, errors, messages);
+    private JobExecution getJobExecution(Long jobId) {
+        JobExecution execution = jobExplorer.getJobExecution(jobId);
+        if (execution == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Import not found with job id: " + jobId);
+        }
+        return execution;
     }
 
-    private Optional<String> validateCsvRow(String title, String author, String date,
-                                            String viewsStr, String likesStr, String link, int rowNumber, Set<String> seenLinks) {
-        if (isAnyEmpty(title, author, date, viewsStr, likesStr, link)) {
-            return Optional.of("Row " + rowNumber + ": One or more fields are empty.");
+    private JobParameters stageJobParameters(MultipartFile file, ImportMode mode) throws IOException {
+        ImportFormat format = ImportFormat.fromFileName(file.getOriginalFilename());
+        try (InputStream in = file.getInputStream()) {
+            return stageJobParameters(in, format, mode);
         }
+    }
+
+    private JobParameters stageJobParameters(InputStream in, ImportFormat format, ImportMode mode) throws IOException {
+        Path stagedFile = stage(in, format);
+        return new JobParametersBuilder()
+                .addString(FILE_PARAMETER, stagedFile.toString())
+                .addString(MODE_PARAMETER, mode.name())
+                .toJobParameters();
+    }
 
-        if (!isInteger(viewsStr)) {
-            return Optional.of("Row " + rowNumber + ": Invalid integer for views.");
+    // The upload is copied to the staging directory so that a restarted job can read it again. Compressed uploads
+    // are staged compressed and only decompressed by the reader.
+    private Path stage(InputStream in, ImportFormat format) throws IOException {
+        Path stagedFile;
+        try {
+            Files.createDirectories(stagingDir);
+            deleteExpiredErrorFiles();
+            stagedFile = stagingDir.resolve(UUID.randomUUID() + format.extension());
+            Files.copy(in, stagedFile);
+        } catch (IOException e) {
+            throw new IOException("Error reading the CSV file", e);
         }
 
-        if (!isInteger(likesStr)) {
-            return Optional.of("Row " + rowNumber + ": Invalid integer for likes.");
+        try {
+            TedTalkCsvItemReader.checkHeader(stagedFile);
+        } catch (IOException | IllegalArgumentException e) {
+            Files.deleteIfExists(stagedFile);
+            throw e;
         }
+        return stagedFile;
+    }
 
-        if (!isValidDate(date)) {
-            return Optional.of("Row " + rowNumber + ": Invalid date format. Expected 'MMMM yyyy'.");
+    // Local imports are confined to the configured directory; symbolic links are resolved before the file is checked.
+    private Path resolveLocalFile(String path) throws IOException {
+        if (localDir.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Local imports are disabled.");
+        }
+        Path dir = Path.of(localDir).toRealPath();
+        Path file = dir.resolve(path).normalize();
+        if (!file.startsWith(dir)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Only files in the local import directory can be imported.");
+        }
+        if (!Files.isRegularFile(file)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Local file not found: " + path);
         }
+        file = file.toRealPath();
+        if (!file.startsWith(dir)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Only files in the local import directory can be imported.");
+        }
+        return file;
+    }
 
-        if (!isValidUrl(link)) {
-            return Optional.of("Row " + rowNumber + ": Invalid URL format.");
+    private void deleteExpiredErrorFiles() throws IOException {
+        Instant expiry = Instant.now().minus(errorFileRetention);
+        try (Stream<Path> files = Files.list(stagingDir)) {
+            for (Path errorFile : files.filter(f -> f.toString().endsWith(".errors") || f.toString().endsWith(".matched")).toList()) {
+                if (Files.getLastModifiedTime(errorFile).toInstant().isBefore(expiry)) {
+                    Files.deleteIfExists(errorFile);
+                }
+            }
         }
+    }
+
+    private ImportResponse toResponse(JobExecution execution) throws Exception {
+        StepExecution step = execution.getStepExecutions().stream().findFirst().orElse(null);
 
-        if (seenLinks.contains(link)) {
-            return Optional.of("Row " + rowNumber + ": Duplicate link in CSV - " + link);
+        if (execution.getStatus() != BatchStatus.COMPLETED || step == null) {
+            long rowNumber = step == null ? 1 : step.getReadCount() + 1;
+            Throwable cause = execution.getAllFailureExceptions().stream().findFirst().orElse(null);
+            throw new Exception("Error processing file, RowNumber at the time of error is: " + rowNumber
+                    + ". Restart the import with job execution id " + execution.getId(), cause);
         }
 
-        seenLinks.add(link);
-        return Optional.empty(); // no errors
+        ExecutionContext context = step.getExecutionContext();
+        int skipped = context.getInt(SKIPPED_KEY, 0);
+        int errors = context.getInt(ERRORS_KEY, 0);
+        return new ImportResponse(
+                execution.getId(),
+                context.getInt(IMPORTED_KEY, 0),
+                context.getInt(UPDATED_KEY, 0),
+                context.getInt(UNCHANGED_KEY, 0),
+                skipped,
+                errors,
+                readErrorSample(execution),
+                skipped + errors > errorSampleSize
+        );
     }
 
+    private ImportJobStatus toStatus(JobExecution execution) throws IOException {
+        StepExecution step = execution.getStepExecutions().stream().findFirst().orElse(null);
+        long rowsRead = step == null ? 0 : step.getReadCount();
+        ExecutionContext context = step == null ? new ExecutionContext() : step.getExecutionContext();
 
+        LocalDateTime startTime = execution.getStartTime();
+        LocalDateTime endTime = execution.getEndTime();
+        double rowsPerSecond = 0;
+        if (startTime != null) {
+            long millis = Duration.between(startTime, endTime != null ? endTime : LocalDateTime.now()).toMillis();
+            rowsPerSecond = millis > 0 ? rowsRead * 1000.0 / millis : 0;
+        }
+
+        int skipped = context.getInt(SKIPPED_KEY, 0);
+        int errors = context.getInt(ERRORS_KEY, 0);
+        return new ImportJobStatus(
+                execution.getId(),
+                execution.getStatus().name(),
+                rowsRead,
+                context.getInt(IMPORTED_KEY, 0),
+                context.getInt(UPDATED_KEY, 0),
+                context.getInt(UNCHANGED_KEY, 0),
+                skipped,
+                errors,
+                rowsPerSecond,
+                startTime,
+                endTime,
+                readErrorSample(execution),
+                skipped + errors > errorSampleSize
+        );
+    }
+
+    private List<ImportError> readErrorSample(JobExecution execution) throws IOException {
+        return ImportErrorFile.read(ImportErrorFile.forJob(execution.getJobParameters()), 0, errorSampleSize);
+    }
 
 }
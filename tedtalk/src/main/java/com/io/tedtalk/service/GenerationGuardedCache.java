@@ -0,0 +1,73 @@
+package com.io.tedtalk.service;
+
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drops a value loaded on a miss when the cache was evicted while it was being loaded. The loader may have read the
+ * database before the write that caused the eviction was committed, and storing its result after the eviction would
+ * keep that stale value until it expires. Every eviction advances a generation; a load that ends in a different
+ * generation than it started in evicts the key again, so the next read loads it afresh.
+ */
+class GenerationGuardedCache implements Cache {
+
+    private final Cache delegate;
+    private final AtomicLong generation = new AtomicLong();
+
+    GenerationGuardedCache(Cache delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return delegate.get(key, type);
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        long loadedIn = generation.get();
+        T value = delegate.get(key, valueLoader);
+        if (generation.get() != loadedIn) {
+            delegate.evict(key);
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        long loadedIn = generation.get();
+        delegate.put(key, value);
+        if (generation.get() != loadedIn) {
+            delegate.evict(key);
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        generation.incrementAndGet();
+        delegate.evict(key);
+    }
+
+    @Override
+    public void clear() {
+        generation.incrementAndGet();
+        delegate.clear();
+    }
+}
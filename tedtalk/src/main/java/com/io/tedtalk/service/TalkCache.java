@@ -0,0 +1,78 @@
+package com.io.tedtalk.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.CacheOperationInvocationContext;
+import org.springframework.cache.interceptor.CacheResolver;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Names of the read-through caches in front of the database and their invalidation. Writers call these once their
+ * change is committed: a changed talk drops its own entry, and any change drops the per-year ranking, which may
+ * include the talk. Write-behind view and like increments only drop the talks; the ranking's reuse window bounds how
+ * long it lags behind them.
+ * <p>
+ * Cached reads resolve their caches here ({@code cacheResolver = "talkCache"}), so they and the evictions share a
+ * {@link GenerationGuardedCache}: a miss that read the database before a commit cannot store its value after the
+ * commit's eviction.
+ */
+@Component
+@RequiredArgsConstructor
+public class TalkCache implements CacheResolver {
+
+    public static final String TALKS = "talks";
+    public static final String TALKS_PER_YEAR = "talksPerYear";
+
+    private final CacheManager cacheManager;
+    private final Map<String, GenerationGuardedCache> caches = new ConcurrentHashMap<>();
+
+    @Override
+    public Collection<? extends Cache> resolveCaches(CacheOperationInvocationContext<?> context) {
+        return context.getOperation().getCacheNames().stream()
+                .map(this::cache)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    public void evictTalk(long id) {
+        Cache talks = cache(TALKS);
+        if (talks != null) {
+            talks.evict(id);
+        }
+        evictRankings();
+    }
+
+    public void evictTalks(Collection<Long> ids) {
+        evictTalkEntries(ids);
+        evictRankings();
+    }
+
+    public void evictTalkEntries(Collection<Long> ids) {
+        Cache talks = cache(TALKS);
+        if (talks != null) {
+            ids.forEach(talks::evict);
+        }
+    }
+
+    public void evictRankings() {
+        Cache talksPerYear = cache(TALKS_PER_YEAR);
+        if (talksPerYear != null) {
+            talksPerYear.clear();
+        }
+    }
+
+    private Cache cache(String name) {
+        Cache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache delegate = cacheManager.getCache(name);
+        return delegate == null ? null : caches.computeIfAbsent(name, key -> new GenerationGuardedCache(delegate));
+    }
+}
@@ -0,0 +1,30 @@
+package com.io.tedtalk.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Gives the per-year ranking its own, short reuse window. Concurrent misses on the same key are computed once (the
+ * caches are read with {@code sync = true}), and the result is then shared for the window unless a write evicts it.
+ */
+@Configuration
+public class TalkCacheConfig {
+
+    private static final int MAX_CACHED_RANKINGS = 100;
+
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> talksPerYearCache(
+            @Value("${tedtalk.cache.talks-per-year.window}") Duration window) {
+        return cacheManager -> cacheManager.registerCustomCache(TalkCache.TALKS_PER_YEAR, Caffeine.newBuilder()
+                .maximumSize(MAX_CACHED_RANKINGS)
+                .expireAfterWrite(window)
+                .recordStats()
+                .build());
+    }
+}
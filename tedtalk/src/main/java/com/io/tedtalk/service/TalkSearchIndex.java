@@ -0,0 +1,258 @@
+package com.io.tedtalk.service;
+
+import com.io.tedtalk.dto.CompletionDTO;
+import com.io.tedtalk.dto.FuzzyAuthorDTO;
+import com.io.tedtalk.dto.InfluencerDTO;
+import com.io.tedtalk.dto.TalkTextDTO;
+import com.io.tedtalk.model.TedTalk;
+import com.io.tedtalk.repository.TedTalkRepository;
+import com.io.tedtalk.util.BkTree;
+import com.io.tedtalk.util.InfluenceRanking;
+import com.io.tedtalk.util.PrefixTrie;
+import com.io.tedtalk.util.TrigramIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * In-memory indexes over the author and title of every talk: trigram indexes for substring search instead of
+ * {@code LIKE '%...%'} scans, prefix tries ranked by influence (views + likes) for autocomplete, a BK-tree of
+ * speaker names for typo-tolerant search and per-author totals kept in influence order for the influencer ranking.
+ * The indexes are loaded when the application starts and must be told about every talk that is created, changed or
+ * deleted afterwards.
+ */
+@Service
+@RequiredArgsConstructor
+public class TalkSearchIndex implements SmartInitializingSingleton {
+
+    private static final int LOAD_BATCH_SIZE = 10_000;
+
+    private final TedTalkRepository tedTalkRepository;
+    private final TrigramIndex authors = new TrigramIndex();
+    private final TrigramIndex titles = new TrigramIndex();
+    private final PrefixTrie authorCompletions = new PrefixTrie();
+    private final PrefixTrie titleCompletions = new PrefixTrie();
+    // Distinct lower-cased speaker names for typo-tolerant search
+    private final BkTree authorNames = new BkTree();
+    private final InfluenceRanking influencers = new InfluenceRanking();
+    // What is currently indexed per talk, so that an update can take back the previous author, title and score
+    private final Map<Long, TalkTextDTO> indexed = new HashMap<>();
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    public synchronized void rebuild() {
+        authors.clear();
+        titles.clear();
+        authorCompletions.clear();
+        titleCompletions.clear();
+        authorNames.clear();
+        influencers.clear();
+        indexed.clear();
+        List<TalkTextDTO> batch;
+        long afterId = 0;
+        do {
+            batch = tedTalkRepository.findTalkTexts(afterId, Limit.of(LOAD_BATCH_SIZE));
+            indexAll(batch);
+            afterId = batch.isEmpty() ? afterId : batch.getLast().id();
+        } while (batch.size() == LOAD_BATCH_SIZE);
+    }
+
+    public void index(TedTalk talk) {
+        index(new TalkTextDTO(talk.getId(), talk.getAuthor(), talk.getTitle(), talk.getViews(), talk.getLikes()));
+    }
+
+    public synchronized void indexAll(Collection<TalkTextDTO> talks) {
+        talks.forEach(this::index);
+    }
+
+    public synchronized void index(TalkTextDTO talk) {
+        authors.put(talk.id(), talk.author());
+        titles.put(talk.id(), talk.title());
+        TalkTextDTO previous = indexed.put(talk.id(), talk);
+        updateCompletions(authorCompletions, previous == null ? null : previous.author(), influence(previous),
+                talk.author(), influence(talk));
+        updateCompletions(titleCompletions, previous == null ? null : previous.title(), influence(previous),
+                talk.title(), influence(talk));
+        if (talk.author() != null) {
+            authorNames.add(normalize(talk.author()));
+        }
+        if (previous != null) {
+            removeAuthorNameIfUnused(previous.author());
+            influencers.remove(previous.author(), views(previous), likes(previous));
+        }
+        influencers.add(talk.author(), views(talk), likes(talk));
+    }
+
+    public synchronized boolean contains(long id) {
+        return indexed.containsKey(id);
+    }
+
+    /**
+     * The indexed author, title, views and likes of a talk, or {@code null} when it is not indexed.
+     */
+    public synchronized TalkTextDTO get(long id) {
+        return indexed.get(id);
+    }
+
+    /**
+     * Adds views and likes that have just been added to a talk in the database.
+     */
+    public synchronized void addStats(long id, long views, long likes) {
+        TalkTextDTO talk = indexed.get(id);
+        if (talk != null) {
+            index(new TalkTextDTO(id, talk.author(), talk.title(),
+                    Math.toIntExact(views(talk) + views), Math.toIntExact(likes(talk) + likes)));
+        }
+    }
+
+    /**
+     * Replaces the views and likes of a talk that have just been set in the database; {@code null} keeps a count.
+     */
+    public synchronized void setStats(long id, Integer views, Integer likes) {
+        TalkTextDTO talk = indexed.get(id);
+        if (talk != null) {
+            index(new TalkTextDTO(id, talk.author(), talk.title(),
+                    views == null ? talk.views() : views, likes == null ? talk.likes() : likes));
+        }
+    }
+
+    public synchronized void remove(long id) {
+        authors.remove(id);
+        titles.remove(id);
+        TalkTextDTO previous = indexed.remove(id);
+        if (previous != null) {
+            authorCompletions.remove(previous.author(), influence(previous));
+            titleCompletions.remove(previous.title(), influence(previous));
+            removeAuthorNameIfUnused(previous.author());
+            influencers.remove(previous.author(), views(previous), likes(previous));
+        }
+    }
+
+    /**
+     * Ids of talks whose author contains the query, ignoring case, in ascending order after {@code afterId}.
+     */
+    public long[] searchAuthor(String author, long afterId, int limit) {
+        return authors.search(author, afterId, limit);
+    }
+
+    /**
+     * Ids of talks whose title contains the query, ignoring case, in ascending order after {@code afterId}.
+     */
+    public long[] searchTitle(String title, long afterId, int limit) {
+        return titles.search(title, afterId, limit);
+    }
+
+    /**
+     * Speakers with a name part starting with the prefix, most influential first.
+     */
+    public List<CompletionDTO> completeAuthor(String prefix, int limit) {
+        return toCompletions(authorCompletions.complete(prefix, limit));
+    }
+
+    /**
+     * Titles with a word starting with the prefix, most influential first.
+     */
+    public List<CompletionDTO> completeTitle(String prefix, int limit) {
+        return toCompletions(titleCompletions.complete(prefix, limit));
+    }
+
+    /**
+     * Speakers within {@code maxDistance} edits of the name, ignoring case, closest first and then most influential.
+     */
+    public List<FuzzyAuthorDTO> searchAuthorFuzzy(String author, int maxDistance, int limit) {
+        return authorNames.search(normalize(author), maxDistance).stream()
+                .map(match -> {
+                    PrefixTrie.Completion speaker = authorCompletions.lookup(match.term());
+                    return speaker == null ? null : new FuzzyAuthorDTO(speaker.text(), match.distance(), speaker.score());
+                })
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparingInt(FuzzyAuthorDTO::distance)
+                        .thenComparing(Comparator.comparingLong(FuzzyAuthorDTO::influenceScore).reversed()))
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Speakers with their summed views and likes, most influential first, counting only speakers with at least
+     * {@code minTalks} talks.
+     */
+    public List<InfluencerDTO> influencers(int offset, int limit, int minTalks) {
+        return influencers.top(offset, limit, minTalks).stream().map(TalkSearchIndex::toInfluencer).toList();
+    }
+
+    /**
+     * Compares the maintained per-speaker totals with totals grouped from scratch by the database. On a mismatch the
+     * ranking is reloaded from the database totals and {@code false} is returned.
+     */
+    public synchronized boolean verifyInfluencers() {
+        Map<String, InfluencerDTO> expected = new HashMap<>();
+        for (InfluencerDTO influencer : tedTalkRepository.findTopInfluentialSpeakers()) {
+            expected.put(influencer.speaker(), influencer);
+        }
+        Map<String, InfluencerDTO> actual = new HashMap<>();
+        for (InfluenceRanking.Influencer influencer : influencers.ranked()) {
+            actual.put(influencer.author(), toInfluencer(influencer));
+        }
+        if (expected.equals(actual)) {
+            return true;
+        }
+        rebuild();
+        return false;
+    }
+
+    private void removeAuthorNameIfUnused(String author) {
+        if (author != null && authorCompletions.lookup(author) == null) {
+            authorNames.remove(normalize(author));
+        }
+    }
+
+    private static String normalize(String text) {
+        return text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static void updateCompletions(PrefixTrie trie, String previousText, long previousScore, String text, long score) {
+        if (text == null) {
+            return;
+        }
+        if (text.equals(previousText)) {
+            trie.rescore(text, score - previousScore);
+            return;
+        }
+        if (previousText != null) {
+            trie.remove(previousText, previousScore);
+        }
+        trie.add(text, score);
+    }
+
+    private static long influence(TalkTextDTO talk) {
+        return talk == null ? 0 : views(talk) + likes(talk);
+    }
+
+    private static long views(TalkTextDTO talk) {
+        return talk.views() == null ? 0L : talk.views();
+    }
+
+    private static long likes(TalkTextDTO talk) {
+        return talk.likes() == null ? 0L : talk.likes();
+    }
+
+    private static InfluencerDTO toInfluencer(InfluenceRanking.Influencer influencer) {
+        return new InfluencerDTO(influencer.author(), influencer.views(), influencer.likes(), influencer.influence());
+    }
+
+    private static List<CompletionDTO> toCompletions(List<PrefixTrie.Completion> completions) {
+        return completions.stream().map(c -> new CompletionDTO(c.text(), c.score())).toList();
+    }
+}
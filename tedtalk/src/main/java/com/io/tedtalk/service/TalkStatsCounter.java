@@ -0,0 +1,188 @@
+package com.io.tedtalk.service;
+
+import com.io.tedtalk.dto.TalkStatsDeltaDTO;
+import com.io.tedtalk.dto.TalkTextDTO;
+import com.io.tedtalk.repository.TedTalkRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts view and like increments in memory and writes them behind in batches. Increments only lock the counter of
+ * their own talk, so concurrent pings neither lose updates nor wait on the database; every
+ * {@code tedtalk.stats.flush-interval} the accumulated deltas are added to the talks with one batched
+ * {@code UPDATE ... SET views = views + ?} and the remaining counts are flushed on shutdown.
+ * <p>
+ * Talks read from the API include increments once they have been flushed. Increments that would push a count past
+ * {@link Integer#MAX_VALUE} are rejected; the check and the increment happen under the counter's lock and include the
+ * deltas a running flush is writing, so concurrent increments cannot overshoot together. Deltas are written in
+ * batches of {@value #FLUSH_BATCH_SIZE}; when a batch fails its deltas are written one by one, and a talk whose delta
+ * still cannot be written is parked: its increments are kept and retried on their own, so it no longer holds back
+ * the other talks. A flush only evicts the cached talks it changed; the per-year ranking picks the new counts up when
+ * its reuse window ends.
+ */
+@Service
+@RequiredArgsConstructor
+public class TalkStatsCounter {
+
+    private static final Logger log = LoggerFactory.getLogger(TalkStatsCounter.class);
+    static final int FLUSH_BATCH_SIZE = 1000;
+
+    private final TedTalkRepository tedTalkRepository;
+    private final TalkSearchIndex talkSearchIndex;
+    private final TalkCache talkCache;
+    // One entry per talk ever incremented; entries are drained, never removed, so no increment can land in a
+    // counter that has already been dropped
+    private final Map<Long, Counter> pending = new ConcurrentHashMap<>();
+    // Talks whose delta could not be written; they are flushed one by one, outside the batches
+    private final Set<Long> parked = ConcurrentHashMap.newKeySet();
+
+    public void increment(long id, long views, long likes) {
+        if (views < 0 || likes < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Views and likes must not be negative");
+        }
+        findTalk(id);
+        Counter counter = pending.computeIfAbsent(id, key -> new Counter());
+        synchronized (counter) {
+            // Read under the lock, so a flush has either added its delta to the index or still holds it as flushing
+            TalkTextDTO talk = findTalk(id);
+            if (exceedsInt(talk.views(), counter.views + counter.flushingViews, views)
+                    || exceedsInt(talk.likes(), counter.likes + counter.flushingLikes, likes)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Views and likes of a talk must not exceed " + Integer.MAX_VALUE);
+            }
+            counter.views += views;
+            counter.likes += likes;
+        }
+    }
+
+    /**
+     * Writes the increments counted since the last flush. Increments that are not written are counted again, so the
+     * next flush retries them. A failure that is not caused by the data of a single talk, such as a lost connection,
+     * stops the flush and is rethrown.
+     */
+    @Scheduled(fixedDelayString = "${tedtalk.stats.flush-interval}")
+    public synchronized void flush() {
+        List<TalkStatsDeltaDTO> deltas = new ArrayList<>();
+        List<TalkStatsDeltaDTO> parkedDeltas = new ArrayList<>();
+        pending.forEach((id, counter) -> {
+            TalkStatsDeltaDTO delta = counter.startFlush(id);
+            if (delta != null) {
+                (parked.contains(id) ? parkedDeltas : deltas).add(delta);
+            }
+        });
+        if (deltas.isEmpty() && parkedDeltas.isEmpty()) {
+            return;
+        }
+
+        List<TalkStatsDeltaDTO> written = new ArrayList<>();
+        try {
+            for (int from = 0; from < deltas.size(); from += FLUSH_BATCH_SIZE) {
+                List<TalkStatsDeltaDTO> batch = deltas.subList(from, Math.min(from + FLUSH_BATCH_SIZE, deltas.size()));
+                try {
+                    tedTalkRepository.addStats(batch);
+                    written.addAll(batch);
+                } catch (RuntimeException e) {
+                    batch.forEach(delta -> writeAlone(delta, written));
+                }
+            }
+            parkedDeltas.forEach(delta -> writeAlone(delta, written));
+        } finally {
+            Set<Long> writtenIds = new HashSet<>();
+            for (TalkStatsDeltaDTO delta : written) {
+                writtenIds.add(delta.id());
+                pending.get(delta.id()).finishFlush(delta, talkSearchIndex);
+            }
+            if (!written.isEmpty()) {
+                // Only the talks; rankings are reused for a short window anyway, and would otherwise be dropped on
+                // every flush under steady traffic
+                talkCache.evictTalkEntries(List.copyOf(writtenIds));
+            }
+            deltas.stream().filter(delta -> !writtenIds.contains(delta.id())).forEach(this::countAgain);
+            parkedDeltas.stream().filter(delta -> !writtenIds.contains(delta.id())).forEach(this::countAgain);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    // Writes the delta of one talk in its own transaction. A talk whose delta the database rejects, e.g. because a
+    // count would overflow, is parked; any other failure is rethrown to the flush.
+    private void writeAlone(TalkStatsDeltaDTO delta, List<TalkStatsDeltaDTO> written) {
+        try {
+            tedTalkRepository.addStats(List.of(delta));
+            written.add(delta);
+            parked.remove(delta.id());
+        } catch (DataIntegrityViolationException e) {
+            if (parked.add(delta.id())) {
+                log.warn("Parked the view and like increments of talk {}, they are retried on their own", delta.id(), e);
+            }
+        }
+    }
+
+    private void countAgain(TalkStatsDeltaDTO delta) {
+        pending.get(delta.id()).cancelFlush();
+    }
+
+    private TalkTextDTO findTalk(long id) {
+        TalkTextDTO talk = talkSearchIndex.get(id);
+        if (talk == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Ted Talk not found with id: " + id);
+        }
+        return talk;
+    }
+
+    // Whether adding the delta to the stored and pending counts would exceed an INTEGER column.
+    private static boolean exceedsInt(Integer stored, long pending, long delta) {
+        return delta > Integer.MAX_VALUE - (stored == null ? 0L : stored) - pending;
+    }
+
+    // Increments not yet taken by a flush, and the ones a running flush is writing. Guarded by the counter itself.
+    private static final class Counter {
+
+        private long views;
+        private long likes;
+        private long flushingViews;
+        private long flushingLikes;
+
+        private synchronized TalkStatsDeltaDTO startFlush(long id) {
+            if (views == 0 && likes == 0) {
+                return null;
+            }
+            flushingViews = views;
+            flushingLikes = likes;
+            views = 0;
+            likes = 0;
+            return new TalkStatsDeltaDTO(id, flushingViews, flushingLikes);
+        }
+
+        // The written delta moves into the index before it stops counting as flushing, so no check misses it
+        private synchronized void finishFlush(TalkStatsDeltaDTO delta, TalkSearchIndex talkSearchIndex) {
+            talkSearchIndex.addStats(delta.id(), delta.views(), delta.likes());
+            flushingViews = 0;
+            flushingLikes = 0;
+        }
+
+        private synchronized void cancelFlush() {
+            views += flushingViews;
+            likes += flushingLikes;
+            flushingViews = 0;
+            flushingLikes = 0;
+        }
+    }
+}
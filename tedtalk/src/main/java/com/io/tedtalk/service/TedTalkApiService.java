@@ -1,34 +1,108 @@
 package com.io.tedtalk.service;
 
+import com.io.tedtalk.dto.BulkItemResultDTO;
+import com.io.tedtalk.dto.BulkItemStatus;
+import com.io.tedtalk.dto.CompletionDTO;
+import com.io.tedtalk.dto.FuzzyAuthorDTO;
 import com.io.tedtalk.dto.InfluencerDTO;
 import com.io.tedtalk.dto.MostInfluentialSpeakerDTO;
+import com.io.tedtalk.dto.TalkLinkDTO;
+import com.io.tedtalk.dto.TalkStatsUpdateDTO;
+import com.io.tedtalk.dto.TalkStatsUpdateResultDTO;
+import com.io.tedtalk.dto.TalkTextDTO;
+import com.io.tedtalk.dto.TedTalkBulkItemDTO;
+import com.io.tedtalk.dto.TedTalkPageDTO;
+import com.io.tedtalk.dto.TedTalkStatsIncrementDTO;
 import com.io.tedtalk.dto.TedTalkStatsUpdateDTO;
 import com.io.tedtalk.model.TedTalk;
 import com.io.tedtalk.repository.TedTalkRepository;
+import com.io.tedtalk.util.PageCursor;
+import com.io.tedtalk.util.PrefixTrie;
+import com.io.tedtalk.util.TalkDecoder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class TedTalkApiService {
+    public static final int MAX_PAGE_SIZE = 500;
+    public static final int MAX_FUZZY_DISTANCE = 3;
+    public static final int MAX_TALKS_PER_YEAR = 100;
+    public static final int MAX_BULK_SIZE = 10_000;
+    private static final int EXPORT_FLUSH_INTERVAL = 1000;
+
     private final TedTalkRepository tedTalkRepository;
+    private final TalkSearchIndex talkSearchIndex;
+    private final TalkCache talkCache;
+    private final TalkStatsCounter talkStatsCounter;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    public TedTalkPageDTO getAllTedTalks(String cursor, int size) {
+        return page(cursor, size, (afterId, limit) -> tedTalkRepository.findByIdGreaterThanOrderByIdAsc(afterId, limit));
+    }
 
-    public List<TedTalk> getAllTedTalks() {
-        return tedTalkRepository.findAll();
+    /**
+     * Writes every talk as newline-delimited JSON while it is read from a database cursor. The output is flushed
+     * and the persistence context cleared every {@value #EXPORT_FLUSH_INTERVAL} talks, so memory use does not
+     * depend on the size of the table.
+     */
+    @Transactional(readOnly = true)
+    public void exportTedTalks(OutputStream out) throws IOException {
+        try (Stream<TedTalk> talks = tedTalkRepository.streamAllByOrderByIdAsc();
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            generator.setRootValueSeparator(null);
+            ObjectWriter writer = objectMapper.writerFor(TedTalk.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            Iterator<TedTalk> iterator = talks.iterator();
+            for (int count = 1; iterator.hasNext(); count++) {
+                writer.writeValue(generator, iterator.next());
+                generator.writeRaw('\n');
+                if (count % EXPORT_FLUSH_INTERVAL == 0) {
+                    generator.flush();
+                    entityManager.clear();
+                }
+            }
+        }
     }
 
+    @Cacheable(value = TalkCache.TALKS, cacheResolver = "talkCache", sync = true)
     public TedTalk getTedTalkById(Long id) {
         return tedTalkRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,"Ted Talk not found with id: " + id));
     }
 
     public TedTalk createTedTalk(TedTalk tedTalk) {
-        return tedTalkRepository.save(tedTalk);
+        TedTalk saved = tedTalkRepository.save(tedTalk);
+        talkSearchIndex.index(saved);
+        talkCache.evictRankings();
+        return saved;
     }
 
     public TedTalk updateTedTalk(Long id, TedTalk tedTalkDetails) {
@@ -42,28 +116,151 @@ public class TedTalkApiService {
         tedTalk.setLikes(tedTalkDetails.getLikes());
         tedTalk.setLink(tedTalkDetails.getLink());
 
-        return tedTalkRepository.save(tedTalk);
+        TedTalk saved = tedTalkRepository.save(tedTalk);
+        talkSearchIndex.index(saved);
+        talkCache.evictTalk(id);
+        return saved;
     }
 
     public void deleteTedTalk(Long id) {
         TedTalk tedTalk = getTedTalkById(id);
         tedTalkRepository.delete(tedTalk);
+        talkSearchIndex.remove(id);
+        talkCache.evictTalk(id);
+    }
+
+    /**
+     * Inserts many talks in one transaction: one query for the links already taken, batched inserts, and one query
+     * for the generated ids. Invalid talks and talks with a taken link are reported and left out.
+     */
+    @Transactional
+    public List<BulkItemResultDTO> createTedTalks(List<TedTalkBulkItemDTO> items) {
+        checkBulkSize(items.size());
+        List<TedTalk> talks = items.stream().map(TedTalkApiService::toValidTalk).toList();
+        Map<String, Long> existingIds = findExistingIds(talks);
+        Set<String> links = new HashSet<>();
+        List<TedTalk> talksToInsert = new ArrayList<>();
+        List<BulkItemStatus> statuses = new ArrayList<>(talks.size());
+        for (TedTalk talk : talks) {
+            if (talk == null) {
+                statuses.add(BulkItemStatus.INVALID);
+            } else if (!links.add(talk.getLink()) || existingIds.containsKey(talk.getLink())) {
+                statuses.add(BulkItemStatus.DUPLICATE_LINK);
+            } else {
+                talksToInsert.add(talk);
+                statuses.add(BulkItemStatus.CREATED);
+            }
+        }
+        tedTalkRepository.insertAll(talksToInsert);
+        Map<String, Long> ids = findExistingIds(talksToInsert);
+        indexAfterCommit(talksToInsert, ids, List.of());
+        return bulkResults(talks, statuses, ids);
+    }
+
+    /**
+     * Inserts many talks or overwrites the stored talks with the same link, matched by a single {@code MERGE} per
+     * batch in one transaction. Invalid talks and repeated links within the request are reported and left out.
+     */
+    @Transactional
+    public List<BulkItemResultDTO> upsertTedTalks(List<TedTalkBulkItemDTO> items) {
+        checkBulkSize(items.size());
+        List<TedTalk> talks = items.stream().map(TedTalkApiService::toValidTalk).toList();
+        Map<String, Long> existingIds = findExistingIds(talks);
+        Set<String> links = new HashSet<>();
+        List<TedTalk> talksToMerge = new ArrayList<>();
+        List<BulkItemStatus> statuses = new ArrayList<>(talks.size());
+        for (TedTalk talk : talks) {
+            if (talk == null) {
+                statuses.add(BulkItemStatus.INVALID);
+            } else if (!links.add(talk.getLink())) {
+                statuses.add(BulkItemStatus.DUPLICATE_LINK);
+            } else {
+                talksToMerge.add(talk);
+                statuses.add(existingIds.containsKey(talk.getLink()) ? BulkItemStatus.UPDATED : BulkItemStatus.CREATED);
+            }
+        }
+        tedTalkRepository.upsertAll(talksToMerge);
+        Map<String, Long> ids = findExistingIds(talksToMerge);
+        List<Long> updatedIds = talksToMerge.stream()
+                .map(TedTalk::getLink)
+                .filter(existingIds::containsKey)
+                .map(ids::get)
+                .toList();
+        indexAfterCommit(talksToMerge, ids, updatedIds);
+        return bulkResults(talks, statuses, ids);
+    }
+
+    /**
+     * Deletes many talks with one query for the ids that exist and a single {@code DELETE ... WHERE id IN}, in one
+     * transaction.
+     */
+    @Transactional
+    public List<BulkItemResultDTO> deleteTedTalks(List<Long> ids) {
+        checkBulkSize(ids.size());
+        if (ids.stream().anyMatch(Objects::isNull)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Ids must not be null");
+        }
+        Set<Long> existing = new HashSet<>(tedTalkRepository.findExistingIds(new HashSet<>(ids)));
+        if (!existing.isEmpty()) {
+            tedTalkRepository.deleteAllByIdInBatch(existing);
+        }
+        afterCommit(() -> {
+            existing.forEach(talkSearchIndex::remove);
+            talkCache.evictTalks(existing);
+        });
+        return ids.stream()
+                .map(id -> new BulkItemResultDTO(id, null,
+                        existing.contains(id) ? BulkItemStatus.DELETED : BulkItemStatus.NOT_FOUND))
+                .toList();
     }
 
-    public List<TedTalk> searchByAuthor(String author) {
-        return tedTalkRepository.findByAuthorContainingIgnoreCase(author);
+    public TedTalkPageDTO searchByAuthor(String author, String cursor, int size) {
+        return page(cursor, size, (afterId, limit) ->
+                findByIds(talkSearchIndex.searchAuthor(author, afterId, limit.max())));
     }
 
-    public List<TedTalk> searchByTitle(String title) {
-        return tedTalkRepository.findByTitleContainingIgnoreCase(title);
+    public TedTalkPageDTO searchByTitle(String title, String cursor, int size) {
+        return page(cursor, size, (afterId, limit) ->
+                findByIds(talkSearchIndex.searchTitle(title, afterId, limit.max())));
     }
 
-    public List<InfluencerDTO> getTopInfluentialSpeakers() {
-        return tedTalkRepository.findTopInfluentialSpeakers();
+    public List<FuzzyAuthorDTO> searchByAuthorFuzzy(String author, int maxDistance, int limit) {
+        if (maxDistance < 0 || maxDistance > MAX_FUZZY_DISTANCE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Max distance must be between 0 and " + MAX_FUZZY_DISTANCE);
+        }
+        return talkSearchIndex.searchAuthorFuzzy(author, maxDistance, checkCompletionLimit(limit));
     }
 
-    public List<MostInfluentialSpeakerDTO> getMostInfluentialTalksPerYear() {
-        return tedTalkRepository.findMostInfluentialTalksPerYear();
+    public List<CompletionDTO> autocompleteAuthor(String prefix, int limit) {
+        return talkSearchIndex.completeAuthor(prefix, checkCompletionLimit(limit));
+    }
+
+    public List<CompletionDTO> autocompleteTitle(String prefix, int limit) {
+        return talkSearchIndex.completeTitle(prefix, checkCompletionLimit(limit));
+    }
+
+    /**
+     * The speaker ranking, paged when a limit is given and complete otherwise.
+     */
+    public List<InfluencerDTO> getTopInfluentialSpeakers(Integer limit, int offset, int minTalks) {
+        if (limit != null && (limit < 1 || limit > MAX_PAGE_SIZE)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (offset < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Offset must not be negative");
+        }
+        if (minTalks < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Minimum talks must be at least 1");
+        }
+        return talkSearchIndex.influencers(offset, limit == null ? Integer.MAX_VALUE : limit, minTalks);
+    }
+
+    @Cacheable(value = TalkCache.TALKS_PER_YEAR, cacheResolver = "talkCache", sync = true)
+    public List<MostInfluentialSpeakerDTO> getMostInfluentialTalksPerYear(int perYear) {
+        if (perYear < 1 || perYear > MAX_TALKS_PER_YEAR) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Talks per year must be between 1 and " + MAX_TALKS_PER_YEAR);
+        }
+        return tedTalkRepository.findMostInfluentialTalksPerYear(perYear);
     }
 
     public Optional<TedTalk> updateViewsAndLikes(Long id, TedTalkStatsUpdateDTO dto) {
@@ -74,8 +271,165 @@ public class TedTalkApiService {
             if (dto.likes() != null) {
                 talk.setLikes(dto.likes());
             }
-            return tedTalkRepository.save(talk);
+            TedTalk saved = tedTalkRepository.save(talk);
+            talkSearchIndex.index(saved);
+            talkCache.evictTalk(id);
+            return saved;
         });
     }
 
+    /**
+     * Sets the views and likes of many talks with one batch of updates in a single transaction, and reports for
+     * every entry whether its talk exists.
+     */
+    public List<TalkStatsUpdateResultDTO> updateViewsAndLikes(List<TalkStatsUpdateDTO> updates) {
+        checkBulkSize(updates.size());
+        for (TalkStatsUpdateDTO update : updates) {
+            if (update.id() == null || (update.views() != null && update.views() < 0)
+                    || (update.likes() != null && update.likes() < 0)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Every update needs an id and views and likes must not be negative");
+            }
+        }
+        int[] counts = tedTalkRepository.updateStats(updates);
+        List<TalkStatsUpdateResultDTO> results = new ArrayList<>(updates.size());
+        List<Long> updatedIds = new ArrayList<>();
+        for (int i = 0; i < updates.size(); i++) {
+            TalkStatsUpdateDTO update = updates.get(i);
+            boolean updated = counts[i] > 0;
+            if (updated) {
+                talkSearchIndex.setStats(update.id(), update.views(), update.likes());
+                updatedIds.add(update.id());
+            }
+            results.add(new TalkStatsUpdateResultDTO(update.id(), updated));
+        }
+        talkCache.evictTalks(updatedIds);
+        return results;
+    }
+
+    /**
+     * Counts views and likes to be added to a talk. They are written to the database in the background, so they show
+     * up in the talk after the next flush.
+     */
+    public void incrementViewsAndLikes(Long id, TedTalkStatsIncrementDTO dto) {
+        talkStatsCounter.increment(id, dto.views(), dto.likes());
+    }
+
+    private static void checkBulkSize(int size) {
+        if (size < 1 || size > MAX_BULK_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Between 1 and " + MAX_BULK_SIZE + " items are accepted");
+        }
+    }
+
+    // Applies the checks of the CSV import to a bulk item, and returns null when it is invalid.
+    private static TedTalk toValidTalk(TedTalkBulkItemDTO item) {
+        if (item == null || !hasText(item.title()) || !hasText(item.author()) || !hasText(item.date())
+                || !hasText(item.link()) || !TalkDecoder.isHttpUrl(item.link())
+                || item.views() == null || item.views() < 0 || item.likes() == null || item.likes() < 0) {
+            return null;
+        }
+        int monthYear = TalkDecoder.decodeMonthYear(item.date());
+        if (monthYear == TalkDecoder.NOT_A_DATE || !TalkDecoder.isInYearRange(monthYear)) {
+            return null;
+        }
+        return TedTalk.builder()
+                .title(item.title())
+                .author(item.author())
+                .month(TalkDecoder.month(monthYear))
+                .year(TalkDecoder.year(monthYear))
+                .views(item.views())
+                .likes(item.likes())
+                .link(item.link())
+                .build();
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+
+    // Resolves the links of all valid talks with a single query.
+    private Map<String, Long> findExistingIds(List<TedTalk> talks) {
+        Set<String> links = talks.stream()
+                .filter(Objects::nonNull)
+                .map(TedTalk::getLink)
+                .collect(Collectors.toSet());
+        if (links.isEmpty()) {
+            return Map.of();
+        }
+        return tedTalkRepository.findExistingLinks(links).stream()
+                .collect(Collectors.toMap(TalkLinkDTO::link, TalkLinkDTO::id));
+    }
+
+    // Written talks are reported with their id, the others only with their link.
+    private static List<BulkItemResultDTO> bulkResults(List<TedTalk> talks, List<BulkItemStatus> statuses,
+                                                       Map<String, Long> ids) {
+        List<BulkItemResultDTO> results = new ArrayList<>(talks.size());
+        for (int i = 0; i < talks.size(); i++) {
+            String link = talks.get(i) == null ? null : talks.get(i).getLink();
+            BulkItemStatus status = statuses.get(i);
+            boolean written = status == BulkItemStatus.CREATED || status == BulkItemStatus.UPDATED;
+            results.add(new BulkItemResultDTO(written ? ids.get(link) : null, link, status));
+        }
+        return results;
+    }
+
+    // Written talks only become searchable, and cached copies stale, once the transaction has been committed.
+    private void indexAfterCommit(List<TedTalk> talks, Map<String, Long> ids, List<Long> updatedIds) {
+        if (talks.isEmpty()) {
+            return;
+        }
+        List<TalkTextDTO> written = talks.stream()
+                .map(talk -> new TalkTextDTO(ids.get(talk.getLink()), talk.getAuthor(), talk.getTitle(),
+                        talk.getViews(), talk.getLikes()))
+                .toList();
+        afterCommit(() -> {
+            talkSearchIndex.indexAll(written);
+            talkCache.evictTalks(updatedIds);
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static int checkCompletionLimit(int limit) {
+        if (limit < 1 || limit > PrefixTrie.MAX_COMPLETIONS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be between 1 and " + PrefixTrie.MAX_COMPLETIONS);
+        }
+        return limit;
+    }
+
+    // Fetches one talk more than requested to find out whether there is a next page
+    private TedTalkPageDTO page(String cursor, int size, PageQuery query) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        List<TedTalk> talks = query.find(PageCursor.decode(cursor), Limit.of(size + 1));
+        if (talks.size() <= size) {
+            return new TedTalkPageDTO(talks, null);
+        }
+        List<TedTalk> page = talks.subList(0, size);
+        return new TedTalkPageDTO(page, PageCursor.encode(page.getLast().getId()));
+    }
+
+    // The search index finds the ids, the database only fetches those rows by primary key
+    private List<TedTalk> findByIds(long[] ids) {
+        if (ids.length == 0) {
+            return List.of();
+        }
+        return tedTalkRepository.findByIdInOrderByIdAsc(Arrays.stream(ids).boxed().toList());
+    }
+
+    private interface PageQuery {
+        List<TedTalk> find(long afterId, Limit limit);
+    }
 }
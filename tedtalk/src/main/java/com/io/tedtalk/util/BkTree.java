@@ -0,0 +1,158 @@
+package com.io.tedtalk.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Burkhard-Keller tree of terms under Levenshtein distance. Children are keyed by their distance to the parent, so
+ * by the triangle inequality a search within distance {@code k} of a query only descends into children whose key is
+ * within {@code k} of the parent's distance to the query, skipping most of the terms.
+ * <p>
+ * Removed terms stay in the tree as tombstones, since the tree cannot be restructured without a rebuild; adding
+ * them again brings them back. Reads run concurrently; updates take a write lock.
+ */
+public class BkTree {
+
+    public record Match(String term, int distance) {}
+
+    private Node root;
+    private final Set<String> removed = new HashSet<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void add(String term) {
+        lock.writeLock().lock();
+        try {
+            removed.remove(term);
+            if (root == null) {
+                root = new Node(term);
+                return;
+            }
+            Node node = root;
+            while (true) {
+                int distance = distance(term, node.term);
+                if (distance == 0) {
+                    return;
+                }
+                Node child = node.child(distance);
+                if (child == null) {
+                    node.addChild(distance, new Node(term));
+                    return;
+                }
+                node = child;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String term) {
+        lock.writeLock().lock();
+        try {
+            removed.add(term);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            root = null;
+            removed.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * All terms within {@code maxDistance} edits of the query, in no particular order.
+     */
+    public List<Match> search(String query, int maxDistance) {
+        List<Match> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            if (root == null) {
+                return matches;
+            }
+            Deque<Node> pending = new ArrayDeque<>();
+            pending.push(root);
+            while (!pending.isEmpty()) {
+                Node node = pending.pop();
+                int distance = distance(query, node.term);
+                if (distance <= maxDistance && !removed.contains(node.term)) {
+                    matches.add(new Match(node.term, distance));
+                }
+                for (int i = 0; i < node.childDistances.length; i++) {
+                    if (Math.abs(node.childDistances[i] - distance) <= maxDistance) {
+                        pending.push(node.children[i]);
+                    }
+                }
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Levenshtein distance between two strings, using two rows of the edit matrix.
+     */
+    static int distance(String a, String b) {
+        if (a.length() < b.length()) {
+            String swap = a;
+            a = b;
+            b = swap;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            char c = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (c == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    private static final class Node {
+
+        private final String term;
+        private int[] childDistances = new int[0];
+        private Node[] children = new Node[0];
+
+        Node(String term) {
+            this.term = term;
+        }
+
+        Node child(int distance) {
+            for (int i = 0; i < childDistances.length; i++) {
+                if (childDistances[i] == distance) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        void addChild(int distance, Node child) {
+            childDistances = Arrays.copyOf(childDistances, childDistances.length + 1);
+            childDistances[childDistances.length - 1] = distance;
+            children = Arrays.copyOf(children, children.length + 1);
+            children[children.length - 1] = child;
+        }
+    }
+}
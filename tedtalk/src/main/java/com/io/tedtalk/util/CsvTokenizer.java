@@ -0,0 +1,220 @@
+package com.io.tedtalk.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Streaming RFC 4180 tokenizer. Characters are read through a fixed buffer and the current record is unescaped
+ * into a reusable array; field strings are only created when {@link #field(int)} is called, so callers can reject
+ * structurally invalid records without allocating anything per field.
+ * <p>
+ * Quoted fields may contain commas, doubled quotes and line breaks. A quote only opens a quoted field at the start
+ * of a field; elsewhere it is taken literally.
+ */
+public class CsvTokenizer implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+
+    private char[] record = new char[512];
+    private int recordLength;
+    private int[] fieldStarts = new int[8];
+    private int[] fieldEnds = new int[8];
+    private int fieldCount;
+    private boolean quoted;
+    private boolean unterminated;
+
+    private int lineNumber;
+    private int nextLineNumber = 1;
+
+    public CsvTokenizer(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Advances to the next record.
+     *
+     * @return false when the end of the input has been reached
+     */
+    public boolean next() throws IOException {
+        recordLength = 0;
+        fieldCount = 0;
+        quoted = false;
+        unterminated = false;
+        lineNumber = nextLineNumber;
+
+        int c = read();
+        if (c == -1) {
+            return false;
+        }
+
+        int fieldStart = 0;
+        boolean inQuotes = false;
+        while (true) {
+            if (inQuotes) {
+                if (c == -1) {
+                    unterminated = true;
+                    break; // unterminated quote, the record ends with the input
+                }
+                if (c == '"') {
+                    if (peek() == '"') {
+                        read();
+                        append('"');
+                    } else {
+                        inQuotes = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        nextLineNumber++;
+                    }
+                    append((char) c);
+                }
+            } else if (c == -1 || c == '\n' || c == '\r') {
+                if (c == '\r' && peek() == '\n') {
+                    read();
+                }
+                if (c != -1) {
+                    nextLineNumber++;
+                }
+                break;
+            } else if (c == ',') {
+                endField(fieldStart);
+                fieldStart = recordLength;
+            } else if (c == '"' && isBlank(fieldStart, recordLength)) {
+                recordLength = fieldStart;
+                inQuotes = true;
+                quoted = true;
+            } else {
+                append((char) c);
+                copyPlainCharacters();
+            }
+            c = read();
+        }
+        endField(fieldStart);
+        return true;
+    }
+
+    /**
+     * Line number on which the current record starts, 1-based.
+     */
+    public int lineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Whether the current record ended with the input inside a quoted field.
+     */
+    public boolean isUnterminated() {
+        return unterminated;
+    }
+
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Whether the current record is an empty or whitespace-only line.
+     */
+    public boolean isBlankRecord() {
+        return fieldCount == 1 && !quoted && isBlank(fieldStarts[0], fieldEnds[0]);
+    }
+
+    /**
+     * Returns the given field of the current record with leading and trailing whitespace removed.
+     */
+    public String field(int index) {
+        if (index < 0 || index >= fieldCount) {
+            throw new IndexOutOfBoundsException("Field " + index + " of " + fieldCount);
+        }
+        int start = fieldStarts[index];
+        int end = fieldEnds[index];
+        while (start < end && record[start] <= ' ') {
+            start++;
+        }
+        while (end > start && record[end - 1] <= ' ') {
+            end--;
+        }
+        return new String(record, start, end - start);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private boolean isBlank(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (record[i] > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void endField(int start) {
+        if (fieldCount == fieldStarts.length) {
+            fieldStarts = Arrays.copyOf(fieldStarts, fieldCount * 2);
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+        }
+        fieldStarts[fieldCount] = start;
+        fieldEnds[fieldCount] = recordLength;
+        fieldCount++;
+    }
+
+    // Copies the run of characters up to the next delimiter, quote or line break in one go.
+    private void copyPlainCharacters() {
+        int start = position;
+        int end = start;
+        while (end < limit) {
+            char c = buffer[end];
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                break;
+            }
+            end++;
+        }
+        int length = end - start;
+        if (recordLength + length > record.length) {
+            record = Arrays.copyOf(record, Math.max(record.length * 2, recordLength + length));
+        }
+        System.arraycopy(buffer, start, record, recordLength, length);
+        recordLength += length;
+        position = end;
+    }
+
+    private void append(char c) {
+        if (recordLength == record.length) {
+            record = Arrays.copyOf(record, recordLength * 2);
+        }
+        record[recordLength++] = c;
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int read = reader.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+}
@@ -0,0 +1,132 @@
+package com.io.tedtalk.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Views, likes and talk counts summed per author, kept sorted by influence (views + likes) as talks come and go.
+ * Adding or removing a talk moves one author in the ranking, so reading it never groups or sorts the talks again.
+ * <p>
+ * Reads run concurrently; updates take a write lock.
+ */
+public class InfluenceRanking {
+
+    public record Influencer(String author, long views, long likes, int talks) {
+
+        public long influence() {
+            return views + likes;
+        }
+    }
+
+    private static final Comparator<Influencer> MOST_INFLUENTIAL_FIRST = Comparator
+            .comparingLong(Influencer::influence).reversed()
+            .thenComparing(Influencer::author);
+
+    private final Map<String, Influencer> byAuthor = new HashMap<>();
+    private final NavigableSet<Influencer> ranking = new TreeSet<>(MOST_INFLUENTIAL_FIRST);
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void add(String author, long views, long likes) {
+        update(author, views, likes, 1);
+    }
+
+    /**
+     * Takes back a talk added with the given views and likes. The author disappears with their last talk.
+     */
+    public void remove(String author, long views, long likes) {
+        update(author, -views, -likes, -1);
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            byAuthor.clear();
+            ranking.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return byAuthor.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Every author, most influential first; ties are ordered by name.
+     */
+    public List<Influencer> ranked() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(ranking);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Up to {@code limit} authors with at least {@code minTalks} talks, most influential first, after skipping the
+     * first {@code offset} of them. The ranking is walked from the top and left as soon as the page is full.
+     */
+    public List<Influencer> top(int offset, int limit, int minTalks) {
+        List<Influencer> page = new ArrayList<>(Math.min(limit, 64));
+        lock.readLock().lock();
+        try {
+            int skipped = 0;
+            for (Influencer influencer : ranking) {
+                if (page.size() == limit) {
+                    break;
+                }
+                if (influencer.talks() < minTalks) {
+                    continue;
+                }
+                if (skipped < offset) {
+                    skipped++;
+                } else {
+                    page.add(influencer);
+                }
+            }
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void update(String author, long views, long likes, int talks) {
+        if (author == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Influencer previous = byAuthor.get(author);
+            if (previous == null && talks < 0) {
+                return;
+            }
+            Influencer current = previous == null
+                    ? new Influencer(author, views, likes, talks)
+                    : new Influencer(author, previous.views() + views, previous.likes() + likes, previous.talks() + talks);
+            if (previous != null) {
+                ranking.remove(previous);
+            }
+            if (current.talks() > 0) {
+                byAuthor.put(author, current);
+                ranking.add(current);
+            } else {
+                byAuthor.remove(author);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.io.tedtalk.util;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque continuation token for keyset pagination. The token holds the id of the last talk on the previous page,
+ * so the next page is an index seek on the primary key no matter how deep it is.
+ */
+public final class PageCursor {
+
+    private static final String PREFIX = "id:";
+
+    private PageCursor() {
+    }
+
+    public static String encode(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * The id to continue after, or 0 for the first page.
+     */
+    public static long decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            if (value.startsWith(PREFIX) && value.length() > PREFIX.length() && value.length() <= PREFIX.length() + 18) {
+                long lastId = 0;
+                for (int i = PREFIX.length(); i < value.length() && lastId >= 0; i++) {
+                    char c = value.charAt(i);
+                    lastId = c >= '0' && c <= '9' ? lastId * 10 + (c - '0') : -1;
+                }
+                if (lastId >= 0) {
+                    return lastId;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // not Base64, reported below
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + cursor);
+    }
+}
@@ -0,0 +1,374 @@
+package com.io.tedtalk.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Scored terms for prefix completion. Terms are reachable from the start of every word, so "brown" completes
+ * "Brené Brown". The trie is path-compressed and every node caches its {@value #MAX_COMPLETIONS} best terms, so a
+ * completion is a walk down the prefix followed by a copy of that cache, however many terms share the prefix.
+ * Adding, removing or rescoring a term only refreshes the caches on the paths of its words.
+ * <p>
+ * Reads run concurrently; updates take a write lock.
+ */
+public class PrefixTrie {
+
+    public static final int MAX_COMPLETIONS = 10;
+
+    public record Completion(String text, long score) {}
+
+    private final Node root = new Node("");
+    private final Map<String, Term> terms = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Adds one occurrence of a term with the given score. Occurrences of the same term, ignoring case, are counted
+     * and their scores summed; the first spelling seen is the one completed.
+     */
+    public void add(String text, long score) {
+        String key = normalize(text);
+        lock.writeLock().lock();
+        try {
+            Term term = terms.get(key);
+            if (term == null) {
+                term = new Term(text);
+                terms.put(key, term);
+                for (String word : wordKeys(key)) {
+                    insert(word).addTerm(term);
+                }
+            }
+            term.count++;
+            term.score += score;
+            refresh(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes one occurrence of a term added with the given score. The term disappears with its last occurrence.
+     */
+    public void remove(String text, long score) {
+        String key = normalize(text);
+        lock.writeLock().lock();
+        try {
+            Term term = terms.get(key);
+            if (term == null) {
+                return;
+            }
+            term.score -= score;
+            if (--term.count > 0) {
+                refresh(key);
+                return;
+            }
+            terms.remove(key);
+            for (String word : wordKeys(key)) {
+                List<Node> path = path(word);
+                path.getLast().removeTerm(term);
+                prune(path);
+            }
+            refresh(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Changes the score of an existing occurrence of a term.
+     */
+    public void rescore(String text, long scoreDelta) {
+        if (scoreDelta == 0) {
+            return;
+        }
+        String key = normalize(text);
+        lock.writeLock().lock();
+        try {
+            Term term = terms.get(key);
+            if (term != null) {
+                term.score += scoreDelta;
+                refresh(key);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            terms.clear();
+            root.children = new Node[0];
+            root.childKeys = new char[0];
+            root.terms = new Term[0];
+            root.top = new Term[0];
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The term matching the text, ignoring case, with its summed score, or {@code null} if there is none.
+     */
+    public Completion lookup(String text) {
+        lock.readLock().lock();
+        try {
+            Term term = terms.get(normalize(text));
+            return term == null ? null : new Completion(term.text, term.score);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The best scoring terms with a word starting with the prefix, ignoring case, highest score first.
+     */
+    public List<Completion> complete(String prefix, int limit) {
+        String key = normalize(prefix);
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            int i = 0;
+            while (i < key.length()) {
+                Node child = node.child(key.charAt(i));
+                if (child == null) {
+                    return List.of();
+                }
+                int common = commonPrefix(child.edge, key, i);
+                if (i + common < key.length() && common < child.edge.length()) {
+                    return List.of();
+                }
+                node = child;
+                i += common;
+            }
+            int count = Math.min(limit, node.top.length);
+            List<Completion> completions = new ArrayList<>(count);
+            for (int t = 0; t < count; t++) {
+                completions.add(new Completion(node.top[t].text, node.top[t].score));
+            }
+            return completions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Walks down the key, splitting edges and adding nodes where needed, and returns the node for the whole key.
+    private Node insert(String key) {
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.child(key.charAt(i));
+            if (child == null) {
+                child = new Node(key.substring(i));
+                node.addChild(child);
+                return child;
+            }
+            int common = commonPrefix(child.edge, key, i);
+            if (common < child.edge.length()) {
+                Node middle = new Node(child.edge.substring(0, common));
+                child.edge = child.edge.substring(common);
+                node.replaceChild(middle);
+                middle.addChild(child);
+                middle.top = child.top;
+                child = middle;
+            }
+            node = child;
+            i += common;
+        }
+        return node;
+    }
+
+    // Nodes from the root down to the node of an indexed key.
+    private List<Node> path(String key) {
+        List<Node> path = new ArrayList<>();
+        path.add(root);
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            node = node.child(key.charAt(i));
+            i += node.edge.length();
+            path.add(node);
+        }
+        return path;
+    }
+
+    private static void prune(List<Node> path) {
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node node = path.get(i);
+            if (node.terms.length > 0 || node.children.length > 0) {
+                return;
+            }
+            path.get(i - 1).removeChild(node);
+        }
+    }
+
+    // Recomputes the cached best terms on every word path of a term, deepest node first.
+    private void refresh(String key) {
+        for (String word : wordKeys(key)) {
+            List<Node> path = pathPrefix(word);
+            for (int i = path.size() - 1; i >= 0; i--) {
+                path.get(i).recomputeTop();
+            }
+        }
+    }
+
+    // Like path(), but stops where a removed key's nodes have been pruned.
+    private List<Node> pathPrefix(String key) {
+        List<Node> path = new ArrayList<>();
+        path.add(root);
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            node = node.child(key.charAt(i));
+            if (node == null || !key.startsWith(node.edge, i)) {
+                break;
+            }
+            i += node.edge.length();
+            path.add(node);
+        }
+        return path;
+    }
+
+    // The term itself and every part of it that starts a word.
+    private static List<String> wordKeys(String key) {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) != ' ' && (i == 0 || key.charAt(i - 1) == ' ')) {
+                String word = key.substring(i);
+                if (!keys.contains(word)) {
+                    keys.add(word);
+                }
+            }
+        }
+        return keys;
+    }
+
+    private static int commonPrefix(String edge, String key, int offset) {
+        int max = Math.min(edge.length(), key.length() - offset);
+        int i = 0;
+        while (i < max && edge.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Term {
+
+        private final String text;
+        private long score;
+        private int count;
+
+        Term(String text) {
+            this.text = text.trim();
+        }
+
+        boolean ranksBefore(Term other) {
+            return score != other.score ? score > other.score : text.compareTo(other.text) < 0;
+        }
+    }
+
+    private static final class Node {
+
+        private String edge;
+        private char[] childKeys = new char[0];
+        private Node[] children = new Node[0];
+        private Term[] terms = new Term[0];
+        // Best terms of this subtree, highest score first
+        private Term[] top = new Term[0];
+
+        Node(String edge) {
+            this.edge = edge;
+        }
+
+        Node child(char c) {
+            int index = Arrays.binarySearch(childKeys, c);
+            return index >= 0 ? children[index] : null;
+        }
+
+        void addChild(Node child) {
+            int index = -Arrays.binarySearch(childKeys, child.edge.charAt(0)) - 1;
+            childKeys = insert(childKeys, index, child.edge.charAt(0));
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, index);
+            grown[index] = child;
+            System.arraycopy(children, index, grown, index + 1, children.length - index);
+            children = grown;
+        }
+
+        void replaceChild(Node child) {
+            children[Arrays.binarySearch(childKeys, child.edge.charAt(0))] = child;
+        }
+
+        void removeChild(Node child) {
+            int index = Arrays.binarySearch(childKeys, child.edge.charAt(0));
+            char[] keys = new char[childKeys.length - 1];
+            Node[] remaining = new Node[children.length - 1];
+            System.arraycopy(childKeys, 0, keys, 0, index);
+            System.arraycopy(childKeys, index + 1, keys, index, keys.length - index);
+            System.arraycopy(children, 0, remaining, 0, index);
+            System.arraycopy(children, index + 1, remaining, index, remaining.length - index);
+            childKeys = keys;
+            children = remaining;
+        }
+
+        void addTerm(Term term) {
+            terms = Arrays.copyOf(terms, terms.length + 1);
+            terms[terms.length - 1] = term;
+        }
+
+        void removeTerm(Term term) {
+            terms = Arrays.stream(terms).filter(t -> t != term).toArray(Term[]::new);
+        }
+
+        void recomputeTop() {
+            Term[] best = new Term[MAX_COMPLETIONS];
+            int size = 0;
+            for (Term term : terms) {
+                size = offer(best, size, term);
+            }
+            for (Node child : children) {
+                for (Term term : child.top) {
+                    size = offer(best, size, term);
+                }
+            }
+            top = Arrays.copyOf(best, size);
+        }
+
+        // Inserts a term into a bounded, ranked array unless it is already there or ranks too low.
+        private static int offer(Term[] best, int size, Term term) {
+            for (int i = 0; i < size; i++) {
+                if (best[i] == term) {
+                    return size;
+                }
+            }
+            int position = size;
+            while (position > 0 && term.ranksBefore(best[position - 1])) {
+                position--;
+            }
+            if (position == best.length) {
+                return size;
+            }
+            int moved = Math.min(size, best.length - 1) - position;
+            System.arraycopy(best, position, best, position + 1, moved);
+            best[position] = term;
+            return Math.min(size + 1, best.length);
+        }
+
+        private static char[] insert(char[] keys, int index, char key) {
+            char[] grown = new char[keys.length + 1];
+            System.arraycopy(keys, 0, grown, 0, index);
+            grown[index] = key;
+            System.arraycopy(keys, index, grown, index + 1, keys.length - index);
+            return grown;
+        }
+    }
+}
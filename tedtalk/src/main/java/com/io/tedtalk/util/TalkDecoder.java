@@ -0,0 +1,200 @@
+package com.io.tedtalk.util;
+
+import java.time.Month;
+import java.time.format.TextStyle;
+import java.util.Locale;
+import java.util.stream.IntStream;
+
+/**
+ * Validates and converts TED talk fields in a single pass. Invalid input is reported through sentinel return
+ * values rather than exceptions, so rejecting a row costs no more than accepting it.
+ */
+public final class TalkDecoder {
+
+    /** Returned by {@link #decodeInt(String)} for anything that is not a 32-bit integer. */
+    public static final long NOT_AN_INT = Long.MIN_VALUE;
+
+    /** Returned by {@link #decodeMonthYear(String)} for anything that is not a {@code MMMM yyyy} date. */
+    public static final int NOT_A_DATE = -1;
+
+    /** The years a talk may be dated in, as constrained on {@code TedTalk}. */
+    public static final int MIN_YEAR = 1900;
+    public static final int MAX_YEAR = 2100;
+
+    private static final String[] MONTH_NAMES = new String[12];
+
+    // Month names grouped by length, so a date is matched against at most three candidates
+    private static final int[][] MONTHS_BY_LENGTH = new int[10][];
+
+    // Characters allowed in the path, query and fragment of a URL, as accepted by java.net.URI
+    private static final boolean[] URL_CHARS = new boolean[128];
+
+    static {
+        for (Month month : Month.values()) {
+            MONTH_NAMES[month.ordinal()] = month.getDisplayName(TextStyle.FULL, Locale.ENGLISH);
+        }
+        for (int length = 0; length < MONTHS_BY_LENGTH.length; length++) {
+            int finalLength = length;
+            MONTHS_BY_LENGTH[length] = IntStream.range(0, 12)
+                    .filter(m -> MONTH_NAMES[m].length() == finalLength)
+                    .toArray();
+        }
+        for (char c = 'a'; c <= 'z'; c++) {
+            URL_CHARS[c] = true;
+            URL_CHARS[Character.toUpperCase(c)] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            URL_CHARS[c] = true;
+        }
+        for (char c : "-._~!$&'()*+,;=:@/?#%".toCharArray()) {
+            URL_CHARS[c] = true;
+        }
+    }
+
+    private TalkDecoder() {
+    }
+
+    /**
+     * Decodes an optionally signed decimal integer, or returns {@link #NOT_AN_INT}.
+     */
+    public static long decodeInt(String value) {
+        int length = value.length();
+        int i = 0;
+        boolean negative = false;
+        if (length > 0 && (value.charAt(0) == '-' || value.charAt(0) == '+')) {
+            negative = value.charAt(0) == '-';
+            i++;
+        }
+        if (i == length || length - i > 10) {
+            return NOT_AN_INT;
+        }
+        long result = 0;
+        for (; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return NOT_AN_INT;
+            }
+            result = result * 10 + (c - '0');
+        }
+        result = negative ? -result : result;
+        return result < Integer.MIN_VALUE || result > Integer.MAX_VALUE ? NOT_AN_INT : result;
+    }
+
+    /**
+     * Decodes a date like {@code December 2021} into {@code year * 12 + month}, with the month in the 0-11 range,
+     * or returns {@link #NOT_A_DATE}.
+     */
+    public static int decodeMonthYear(String date) {
+        int space = date.indexOf(' ');
+        if (space < 0 || space >= MONTHS_BY_LENGTH.length || date.length() - space - 1 != 4) {
+            return NOT_A_DATE;
+        }
+        int month = -1;
+        for (int candidate : MONTHS_BY_LENGTH[space]) {
+            if (date.regionMatches(0, MONTH_NAMES[candidate], 0, space)) {
+                month = candidate;
+                break;
+            }
+        }
+        int year = 0;
+        for (int i = space + 1; i < date.length(); i++) {
+            char c = date.charAt(i);
+            if (c < '0' || c > '9') {
+                return NOT_A_DATE;
+            }
+            year = year * 10 + (c - '0');
+        }
+        return month < 0 || year == 0 ? NOT_A_DATE : year * 12 + month;
+    }
+
+    public static int month(int monthYear) {
+        return monthYear % 12;
+    }
+
+    public static int year(int monthYear) {
+        return monthYear / 12;
+    }
+
+    /**
+     * Whether a decoded date lies within {@link #MIN_YEAR} and {@link #MAX_YEAR}.
+     */
+    public static boolean isInYearRange(int monthYear) {
+        return year(monthYear) >= MIN_YEAR && year(monthYear) <= MAX_YEAR;
+    }
+
+    /**
+     * The English name of a month in the 0-11 range.
+     */
+    public static String monthName(int month) {
+        return MONTH_NAMES[month];
+    }
+
+    /**
+     * Whether the value is an absolute http or https URL with a host name.
+     */
+    public static boolean isHttpUrl(String url) {
+        int schemeEnd;
+        if (url.regionMatches(true, 0, "http://", 0, 7)) {
+            schemeEnd = 7;
+        } else if (url.regionMatches(true, 0, "https://", 0, 8)) {
+            schemeEnd = 8;
+        } else {
+            return false;
+        }
+
+        int authorityEnd = schemeEnd;
+        while (authorityEnd < url.length() && "/?#".indexOf(url.charAt(authorityEnd)) < 0) {
+            authorityEnd++;
+        }
+        int hostStart = url.lastIndexOf('@', authorityEnd - 1) + 1;
+        hostStart = Math.max(hostStart, schemeEnd);
+        int hostEnd = url.indexOf(':', hostStart);
+        hostEnd = hostEnd < 0 || hostEnd > authorityEnd ? authorityEnd : hostEnd;
+        if (!isHostName(url, hostStart, hostEnd)) {
+            return false;
+        }
+        for (int i = hostEnd + 1; i < authorityEnd; i++) {
+            if (url.charAt(i) < '0' || url.charAt(i) > '9') {
+                return false;
+            }
+        }
+
+        for (int i = authorityEnd; i < url.length(); i++) {
+            char c = url.charAt(i);
+            if (c >= URL_CHARS.length || !URL_CHARS[c]) {
+                return false;
+            }
+            if (c == '%' && (i + 2 >= url.length() || !isHex(url.charAt(i + 1)) || !isHex(url.charAt(i + 2)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Dot-separated labels of letters, digits and inner hyphens
+    private static boolean isHostName(String url, int start, int end) {
+        if (start == end || url.charAt(start) == '.' || url.charAt(end - 1) == '.') {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            char c = url.charAt(i);
+            boolean labelEdge = i == start || i == end - 1 || url.charAt(i - 1) == '.' || url.charAt(i + 1) == '.';
+            if (c == '.') {
+                if (url.charAt(i - 1) == '.') {
+                    return false;
+                }
+            } else if (c == '-') {
+                if (labelEdge) {
+                    return false;
+                }
+            } else if (!Character.isLetterOrDigit(c) || c > 127) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isHex(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+}
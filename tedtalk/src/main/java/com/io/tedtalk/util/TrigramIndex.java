@@ -0,0 +1,219 @@
+package com.io.tedtalk.util;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Case-insensitive substring index over one text per id. Every three-character window of a text points to the
+ * sorted ids containing it, so a query only looks at the ids found in all posting lists of its trigrams instead of
+ * scanning every text. Candidates are confirmed against the stored text, which also answers queries shorter than
+ * three characters.
+ * <p>
+ * Reads run concurrently; updates take a write lock.
+ */
+public class TrigramIndex {
+
+    private final Map<Long, PostingList> postings = new HashMap<>();
+    private final NavigableMap<Long, String> texts = new TreeMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Indexes the text of an id, replacing whatever was indexed for it before.
+     */
+    public void put(long id, String text) {
+        String normalized = normalize(text);
+        lock.writeLock().lock();
+        try {
+            String previous = texts.put(id, normalized);
+            if (normalized.equals(previous)) {
+                return;
+            }
+            if (previous != null) {
+                removePostings(id, previous);
+            }
+            for (int i = 0; i + 3 <= normalized.length(); i++) {
+                postings.computeIfAbsent(trigram(normalized, i), key -> new PostingList()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            String previous = texts.remove(id);
+            if (previous != null) {
+                removePostings(id, previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            texts.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return texts.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} ids greater than {@code afterId}, in ascending order, whose text contains the query.
+     */
+    public long[] search(String query, long afterId, int limit) {
+        String normalized = normalize(query);
+        lock.readLock().lock();
+        try {
+            return normalized.length() < 3
+                    ? scan(normalized, afterId, limit)
+                    : intersect(normalized, afterId, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long[] scan(String query, long afterId, int limit) {
+        long[] result = new long[limit];
+        int found = 0;
+        for (Map.Entry<Long, String> entry : texts.tailMap(afterId, false).entrySet()) {
+            if (found == limit) {
+                break;
+            }
+            if (entry.getValue().contains(query)) {
+                result[found++] = entry.getKey();
+            }
+        }
+        return Arrays.copyOf(result, found);
+    }
+
+    private long[] intersect(String query, long afterId, int limit) {
+        PostingList[] lists = new PostingList[query.length() - 2];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = postings.get(trigram(query, i));
+            if (lists[i] == null) {
+                return new long[0];
+            }
+        }
+        // Walk the rarest trigram and probe the others
+        Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+        PostingList rarest = lists[0];
+
+        // Candidates ascend, so the position in every other list only moves forward
+        int[] positions = new int[lists.length];
+        long[] result = new long[Math.min(limit, rarest.size)];
+        int found = 0;
+        for (int i = rarest.firstIndexAfter(afterId); i < rarest.size && found < result.length; i++) {
+            long id = rarest.ids[i];
+            if (containsInAll(lists, positions, id) && texts.get(id).contains(query)) {
+                result[found++] = id;
+            }
+        }
+        return Arrays.copyOf(result, found);
+    }
+
+    private static boolean containsInAll(PostingList[] lists, int[] positions, long id) {
+        for (int i = 1; i < lists.length; i++) {
+            positions[i] = lists[i].seek(positions[i], id);
+            if (positions[i] == lists[i].size || lists[i].ids[positions[i]] != id) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void removePostings(long id, String text) {
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            long key = trigram(text, i);
+            PostingList list = postings.get(key);
+            if (list != null && list.remove(id) && list.size == 0) {
+                postings.remove(key);
+            }
+        }
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    private static long trigram(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+
+    /**
+     * Sorted ids sharing one trigram. Ids mostly arrive in ascending order, so adding is usually an append.
+     */
+    private static final class PostingList {
+
+        private long[] ids = new long[4];
+        private int size;
+
+        void add(long id) {
+            if (size > 0 && ids[size - 1] >= id) {
+                int index = Arrays.binarySearch(ids, 0, size, id);
+                if (index >= 0) {
+                    return;
+                }
+                insertAt(-index - 1, id);
+                return;
+            }
+            insertAt(size, id);
+        }
+
+        boolean remove(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        // Index of the first id >= the given one at or after {@code from}, galloping ahead before a binary search
+        int seek(int from, long id) {
+            int step = 1;
+            int high = from;
+            while (high < size && ids[high] < id) {
+                from = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            int index = Arrays.binarySearch(ids, from, Math.min(high + 1, size), id);
+            return index >= 0 ? index : -index - 1;
+        }
+
+        int firstIndexAfter(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            return index >= 0 ? index + 1 : -index - 1;
+        }
+
+        private void insertAt(int index, long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            ids[index] = id;
+            size++;
+        }
+    }
+}
@@ -1,12 +1,6 @@
 package com.io.tedtalk.util;
 
-import java.net.URI;
-import java.net.URL;
-import java.time.YearMonth;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.Arrays;
-import java.util.Locale;
 
 public class Validate {
     public static boolean isAnyEmpty(String... values) {
@@ -14,33 +8,15 @@ public class Validate {
     }
 
     public static boolean isInteger(String value) {
-        try {
-            Integer.parseInt(value);
-            return true;
-        } catch (NumberFormatException e) {
-            return false;
-        }
+        return TalkDecoder.decodeInt(value) != TalkDecoder.NOT_AN_INT;
     }
 
     public static boolean isValidDate(String date) {
-        try {
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMMM yyyy", Locale.ENGLISH);
-            YearMonth.parse(date, formatter);
-            return true;
-        } catch (DateTimeParseException e) {
-            return false;
-        }
+        return TalkDecoder.decodeMonthYear(date) != TalkDecoder.NOT_A_DATE;
     }
 
     public static boolean isValidUrl(String url) {
-        try {
-            URI uri = URI.create(url);
-            return uri.getScheme() != null &&
-                    (uri.getScheme().equalsIgnoreCase("http") || uri.getScheme().equalsIgnoreCase("https")) &&
-                    uri.getHost() != null;
-        } catch (IllegalArgumentException e) {
-            return false;
-        }
+        return TalkDecoder.isHttpUrl(url);
     }
 
 }
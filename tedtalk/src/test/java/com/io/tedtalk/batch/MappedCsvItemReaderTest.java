@@ -0,0 +1,109 @@
+package com.io.tedtalk.batch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedCsvItemReaderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void read_ShouldMatchTheSequentialReaderForAnySegmentSize() throws Exception {
+        StringBuilder csv = new StringBuilder("\uFEFFtitle,author,date,views,likes,link\r\n");
+        for (int i = 0; i < 200; i++) {
+            switch (i % 5) {
+                case 0 -> csv.append("\"Talk ").append(i).append("\nwith a \"\"quoted\"\" line break\",Author,June 2010,1,1,https://example.com/")
+                        .append(i).append('\n');
+                case 1 -> csv.append("Talk ").append(i).append(",Author,June 2010,1,1,https://example.com/").append(i).append("\r\n");
+                case 2 -> csv.append("\n");
+                case 3 -> csv.append("Gönül ").append(i).append(",Ayşe,June 2010\n");
+                default -> csv.append("Talk ").append(i).append(",Author,June 2010,1,1,https://example.com/").append(i).append('\n');
+            }
+        }
+        csv.append("\"Unterminated, at the end\n");
+        Path file = Files.writeString(dir.resolve("talks.csv"), csv);
+
+        List<String> expected = readAll(new TedTalkCsvItemReader(file));
+        for (long segmentSize : new long[]{1, 7, 64, 333, 4096, 1 << 20}) {
+            assertEquals(expected, readAll(new MappedCsvItemReader(file, segmentSize, 3)), "segment size " + segmentSize);
+        }
+        assertEquals(201, expected.size());
+    }
+
+    @Test
+    void open_WithoutHeader_ShouldThrowException() throws IOException {
+        Path file = Files.writeString(dir.resolve("talks.csv"), "Talk,Author,June 2010,1,1,https://example.com/1\n");
+
+        MappedCsvItemReader reader = new MappedCsvItemReader(file, 16, 2);
+        reader.open(new ExecutionContext());
+        try {
+            assertThrows(IllegalArgumentException.class, reader::read);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Compares the mapped, parallel reader with the sequential reader. Run with {@code -Dbenchmark=true}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmark_AgainstSequentialReader() throws Exception {
+        Path file = dir.resolve("talks.csv");
+        try (var out = Files.newBufferedWriter(file)) {
+            out.write("title,author,date,views,likes,link\n");
+            for (int i = 0; i < 5_000_000; i++) {
+                out.write("Talk number " + i + ",Speaker " + (i % 5000) + ",June 2010," + (i * 7) + "," + i
+                        + ",https://example.com/talks/" + i + "\n");
+            }
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        System.out.printf("%d MB, %d threads%n", Files.size(file) >> 20, threads);
+
+        for (int round = 0; round < 3; round++) {
+            long sequential = time(new TedTalkCsvItemReader(file));
+            long mapped = time(new MappedCsvItemReader(file, 1 << 20, threads));
+            System.out.printf("round %d: sequential %d ms | mapped %d ms%n", round, sequential, mapped);
+        }
+    }
+
+    private static List<String> readAll(ItemStreamReader<CsvRow> reader) throws Exception {
+        List<String> rows = new ArrayList<>();
+        reader.open(new ExecutionContext());
+        try {
+            CsvRow row;
+            while ((row = reader.read()) != null) {
+                rows.add(row.rowNumber() + ":" + row.columnCount() + ":" + Arrays.toString(row.fields()));
+            }
+        } finally {
+            reader.close();
+        }
+        return rows;
+    }
+
+    private static long time(ItemStreamReader<CsvRow> reader) throws Exception {
+        long start = System.nanoTime();
+        reader.open(new ExecutionContext());
+        try {
+            while (reader.read() != null) {
+                // read every row
+            }
+        } finally {
+            reader.close();
+        }
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
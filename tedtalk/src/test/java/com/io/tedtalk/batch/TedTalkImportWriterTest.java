@@ -0,0 +1,101 @@
+package com.io.tedtalk.batch;
+
+import com.io.tedtalk.dto.ImportError;
+import com.io.tedtalk.dto.ImportMode;
+import com.io.tedtalk.dto.TalkTextDTO;
+import com.io.tedtalk.model.TedTalk;
+import com.io.tedtalk.repository.TedTalkRepository;
+import com.io.tedtalk.service.TalkCache;
+import com.io.tedtalk.service.TalkSearchIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.io.tedtalk.dto.ImportErrorCode.DUPLICATE_IN_CSV;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class TedTalkImportWriterTest {
+
+    // Beyond the int range, as ids may grow
+    private static final long INSERTED_ID = 5_000_000_001L;
+    private static final long CONCURRENT_ID = 5_000_000_002L;
+
+    @TempDir
+    Path dir;
+
+    private final TedTalkRepository tedTalkRepository = mock(TedTalkRepository.class);
+    private final TalkSearchIndex talkSearchIndex = mock(TalkSearchIndex.class);
+    private final TalkCache talkCache = mock(TalkCache.class);
+
+    @BeforeEach
+    void setUp() {
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void write_InUpsertMode_ShouldMergeTalksCreatedElsewhereDuringTheImportAndReportOwnRepeatsAcrossRestarts() throws Exception {
+        Path errorFile = dir.resolve("import.errors");
+        ExecutionContext context = new ExecutionContext();
+        TedTalkImportWriter writer = new TedTalkImportWriter(tedTalkRepository, talkSearchIndex, talkCache, errorFile,
+                ImportMode.UPSERT);
+        writer.open(context);
+
+        // The first chunk inserts link a
+        when(tedTalkRepository.findByLinkIn(anyCollection())).thenReturn(List.of());
+        when(tedTalkRepository.upsertAll(anyList())).thenReturn(1);
+        when(tedTalkRepository.findTalkTextsByLinks(List.of("https://example.com/a")))
+                .thenReturn(List.of(new TalkTextDTO(INSERTED_ID, "Author", "A", 1, 1)));
+        writer.write(Chunk.of(row(2, "https://example.com/a", 1)));
+        writer.update(context);
+
+        // Link b was created by someone else after the import started, so it has a higher id than anything before
+        TedTalk storedB = talk("https://example.com/b", 1);
+        storedB.setId(CONCURRENT_ID);
+        TedTalk storedA = talk("https://example.com/a", 1);
+        storedA.setId(INSERTED_ID);
+        when(tedTalkRepository.findByLinkIn(anyCollection())).thenReturn(List.of(storedA, storedB));
+        when(tedTalkRepository.findTalkTextsByLinks(List.of("https://example.com/b")))
+                .thenReturn(List.of(new TalkTextDTO(CONCURRENT_ID, "Author", "B", 9, 1)));
+        writer.write(Chunk.of(row(3, "https://example.com/b", 9), row(4, "https://example.com/a", 2)));
+        writer.update(context);
+        writer.close();
+
+        verify(tedTalkRepository).upsertAll(List.of(talk("https://example.com/b", 9)));
+        assertEquals(List.of(new ImportError(4, DUPLICATE_IN_CSV, "link")), ImportErrorFile.read(errorFile, 0, 10));
+
+        // A restarted import still knows both talks from the spill file
+        TedTalkImportWriter restarted = new TedTalkImportWriter(tedTalkRepository, talkSearchIndex, talkCache, errorFile,
+                ImportMode.UPSERT);
+        restarted.open(context);
+        restarted.write(Chunk.of(row(5, "https://example.com/b", 10), row(6, "https://example.com/a", 3)));
+        restarted.update(context);
+        restarted.close();
+
+        assertEquals(List.of(new ImportError(4, DUPLICATE_IN_CSV, "link"), new ImportError(5, DUPLICATE_IN_CSV, "link"),
+                new ImportError(6, DUPLICATE_IN_CSV, "link")), ImportErrorFile.read(errorFile, 0, 10));
+        verify(tedTalkRepository).upsertAll(List.of());
+    }
+
+    private static CsvRowResult row(int rowNumber, String link, int views) {
+        return CsvRowResult.accepted(rowNumber, talk(link, views));
+    }
+
+    private static TedTalk talk(String link, int views) {
+        return TedTalk.builder().title("Talk").author("Author").month(5).year(2010).views(views).likes(1).link(link).build();
+    }
+}
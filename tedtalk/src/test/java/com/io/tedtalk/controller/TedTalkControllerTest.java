@@ -1,7 +1,16 @@
 package com.io.tedtalk.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.io.tedtalk.dto.CompletionDTO;
+import com.io.tedtalk.dto.FuzzyAuthorDTO;
 import com.io.tedtalk.dto.InfluencerDTO;
 import com.io.tedtalk.dto.MostInfluentialSpeakerDTO;
+import com.io.tedtalk.dto.TedTalkBulkItemDTO;
+import com.io.tedtalk.dto.TedTalkPageDTO;
+import com.io.tedtalk.dto.BulkItemResultDTO;
+import com.io.tedtalk.dto.BulkItemStatus;
+import com.io.tedtalk.dto.TalkStatsUpdateDTO;
+import com.io.tedtalk.dto.TalkStatsUpdateResultDTO;
+import com.io.tedtalk.dto.TedTalkStatsIncrementDTO;
 import com.io.tedtalk.dto.TedTalkStatsUpdateDTO;
 import com.io.tedtalk.model.TedTalk;
 import com.io.tedtalk.service.TedTalkApiService;
@@ -14,11 +23,16 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.OutputStream;
+import java.time.Duration;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -55,24 +69,64 @@ class TedTalkControllerTest {
     }
     @Test
     void getAllTedTalks_ShouldReturnListOfTalks() throws Exception {
-        when(tedTalkApiService.getAllTedTalks()).thenReturn(List.of(sampleTalk));
+        when(tedTalkApiService.getAllTedTalks(null, 50)).thenReturn(new TedTalkPageDTO(List.of(sampleTalk), "next"));
 
         mockMvc.perform(get("/api/tedtalks"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].title").value("The power of vulnerability"))
-                .andExpect(jsonPath("$[0].author").value("Brené Brown"));
+                .andExpect(jsonPath("$.items[0].title").value("The power of vulnerability"))
+                .andExpect(jsonPath("$.items[0].author").value("Brené Brown"))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
 
-        verify(tedTalkApiService, times(1)).getAllTedTalks();
+        verify(tedTalkApiService, times(1)).getAllTedTalks(null, 50);
     }
 
     @Test
     void getAllTedTalks_WhenNoTalksExist_ShouldReturnEmptyList() throws Exception {
-        when(tedTalkApiService.getAllTedTalks()).thenReturn(List.of());
+        when(tedTalkApiService.getAllTedTalks("abc", 10)).thenReturn(new TedTalkPageDTO(List.of(), null));
 
-        mockMvc.perform(get("/api/tedtalks"))
-                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/tedtalks").param("cursor", "abc").param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items").isEmpty());
+
+        verify(tedTalkApiService, times(1)).getAllTedTalks("abc", 10);
+    }
+
+    @Test
+    void exportTedTalks_ShouldStreamNdjson() throws Exception {
+        doAnswer(invocation -> {
+            invocation.getArgument(0, OutputStream.class).write("{\"title\":\"The power of vulnerability\"}\n".getBytes());
+            return null;
+        }).when(tedTalkApiService).exportTedTalks(any());
+
+        MvcResult result = mockMvc.perform(get("/api/tedtalks/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // The export has no timeout, so wait for it explicitly rather than for the request's timeout
+        result.getAsyncResult(5_000);
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"title\":\"The power of vulnerability\"}\n"));
+    }
 
-        verify(tedTalkApiService, times(1)).getAllTedTalks();
+    @Test
+    void exportTedTalks_ShouldUseTheConfiguredTimeoutInsteadOfTheDefaultAsyncTimeout() throws Exception {
+        ReflectionTestUtils.setField(tedTalkApiController, "exportTimeout", Duration.ofMillis(50));
+        doAnswer(invocation -> {
+            invocation.getArgument(0, OutputStream.class).write("{}\n".getBytes());
+            return null;
+        }).when(tedTalkApiService).exportTedTalks(any());
+
+        MvcResult result = mockMvc.perform(get("/api/tedtalks/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertEquals(50, result.getRequest().getAsyncContext().getTimeout());
+
+        ReflectionTestUtils.setField(tedTalkApiController, "exportTimeout", Duration.ZERO);
+        MvcResult unlimited = mockMvc.perform(get("/api/tedtalks/export")).andReturn();
+        assertEquals(0, unlimited.getRequest().getAsyncContext().getTimeout());
+        unlimited.getAsyncResult(5_000);
     }
 
     @Test
@@ -123,6 +177,67 @@ class TedTalkControllerTest {
 
     }
 
+    @Test
+    void createTedTalks_ShouldReturnAResultPerTalk() throws Exception {
+        when(tedTalkApiService.createTedTalks(anyList())).thenReturn(List.of(
+                new BulkItemResultDTO(1L, sampleTalk.getLink(), BulkItemStatus.CREATED)));
+
+        mockMvc.perform(post("/api/tedtalks/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(sampleTalk))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].status").value("CREATED"));
+    }
+
+    @Test
+    void createTedTalks_WithAnUnreadableDate_ShouldStillPassEveryItemToTheService() throws Exception {
+        when(tedTalkApiService.createTedTalks(anyList())).thenReturn(List.of(
+                new BulkItemResultDTO(null, null, BulkItemStatus.INVALID),
+                new BulkItemResultDTO(1L, "https://example.com/b", BulkItemStatus.CREATED)));
+
+        mockMvc.perform(post("/api/tedtalks/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"title\": \"A\", \"author\": \"Author\", \"date\": \"Invalid\", \"views\": 1, \"likes\": 1, \"link\": \"https://example.com/a\"},"
+                                + " {\"title\": \"B\", \"author\": \"Author\", \"date\": \"June 2010\", \"views\": 1, \"likes\": 1, \"link\": \"https://example.com/b\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("INVALID"))
+                .andExpect(jsonPath("$[1].status").value("CREATED"));
+
+        verify(tedTalkApiService).createTedTalks(List.of(
+                new TedTalkBulkItemDTO("A", "Author", "Invalid", 1, 1, "https://example.com/a"),
+                new TedTalkBulkItemDTO("B", "Author", "June 2010", 1, 1, "https://example.com/b")));
+    }
+
+    @Test
+    void upsertTedTalks_ShouldReturnAResultPerTalk() throws Exception {
+        when(tedTalkApiService.upsertTedTalks(anyList())).thenReturn(List.of(
+                new BulkItemResultDTO(1L, sampleTalk.getLink(), BulkItemStatus.UPDATED)));
+
+        mockMvc.perform(put("/api/tedtalks/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(sampleTalk))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("UPDATED"));
+
+        verify(tedTalkApiService, never()).updateTedTalk(any(), any());
+    }
+
+    @Test
+    void deleteTedTalks_ShouldReturnAResultPerId() throws Exception {
+        when(tedTalkApiService.deleteTedTalks(List.of(1L, 99L))).thenReturn(List.of(
+                new BulkItemResultDTO(1L, null, BulkItemStatus.DELETED),
+                new BulkItemResultDTO(99L, null, BulkItemStatus.NOT_FOUND)));
+
+        mockMvc.perform(delete("/api/tedtalks/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[1, 99]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[1].status").value("NOT_FOUND"));
+
+        verify(tedTalkApiService, never()).deleteTedTalk(any());
+    }
+
     @Test
     void updateTedTalk_WithValidIdAndTalk_ShouldReturnUpdatedTalk() throws Exception {
         when(tedTalkApiService.updateTedTalk(eq(1L), any(TedTalk.class))).thenReturn(sampleTalk);
@@ -171,26 +286,85 @@ class TedTalkControllerTest {
     }
     @Test
     void searchByAuthor_WithMatchingAuthor_ShouldReturnTalks() throws Exception {
-        when(tedTalkApiService.searchByAuthor("Brown")).thenReturn(List.of(sampleTalk));
+        when(tedTalkApiService.searchByAuthor("Brown", null, 50)).thenReturn(new TedTalkPageDTO(List.of(sampleTalk), null));
 
         mockMvc.perform(get("/api/tedtalks/search/author")
                         .param("author", "Brown"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].author").value("Brené Brown"));
+                .andExpect(jsonPath("$.items[0].author").value("Brené Brown"));
 
-        verify(tedTalkApiService, times(1)).searchByAuthor("Brown");
+        verify(tedTalkApiService, times(1)).searchByAuthor("Brown", null, 50);
     }
 
     @Test
     void searchByAuthor_WithNoMatches_ShouldReturnEmptyList() throws Exception {
-        when(tedTalkApiService.searchByAuthor("Nonexistent")).thenReturn(List.of());
+        when(tedTalkApiService.searchByAuthor("Nonexistent", null, 50)).thenReturn(new TedTalkPageDTO(List.of(), null));
 
         mockMvc.perform(get("/api/tedtalks/search/author")
                         .param("author", "Nonexistent"))
                 .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items").isEmpty());
+
+        verify(tedTalkApiService, times(1)).searchByAuthor("Nonexistent", null, 50);
+    }
+
+    @Test
+    void autocompleteAuthor_ShouldReturnRankedCompletions() throws Exception {
+        when(tedTalkApiService.autocompleteAuthor("bre", 10)).thenReturn(List.of(new CompletionDTO("Brené Brown", 52500000)));
+
+        mockMvc.perform(get("/api/tedtalks/autocomplete/author").param("prefix", "bre"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].text").value("Brené Brown"))
+                .andExpect(jsonPath("$[0].influenceScore").value(52500000));
+    }
+
+    @Test
+    void searchByAuthorFuzzy_ShouldReturnClosestSpeakers() throws Exception {
+        when(tedTalkApiService.searchByAuthorFuzzy("brene brwn", 2, 10))
+                .thenReturn(List.of(new FuzzyAuthorDTO("Brené Brown", 2, 52500000)));
+
+        mockMvc.perform(get("/api/tedtalks/search/author/fuzzy").param("author", "brene brwn").param("maxDistance", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].author").value("Brené Brown"))
+                .andExpect(jsonPath("$[0].distance").value(2));
+    }
+
+    @Test
+    void getInfluentialSpeakers_ShouldAskForTheWholeRankingUnlessALimitIsGiven() throws Exception {
+        when(tedTalkApiService.getTopInfluentialSpeakers(null, 0, 1)).thenReturn(List.of(new InfluencerDTO("Brené Brown", 50000000, 2500000, 52500000)));
+        when(tedTalkApiService.getTopInfluentialSpeakers(3, 6, 2)).thenReturn(List.of());
+
+        mockMvc.perform(get("/api/tedtalks/influencers"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].speaker").value("Brené Brown"));
+        mockMvc.perform(get("/api/tedtalks/influencers").param("limit", "3").param("offset", "6").param("minTalks", "2"))
+                .andExpect(status().isOk())
                 .andExpect(jsonPath("$").isEmpty());
+    }
+
+    @Test
+    void updateStats_ShouldReturnAnOutcomePerEntry() throws Exception {
+        when(tedTalkApiService.updateViewsAndLikes(List.of(new TalkStatsUpdateDTO(1L, 500, null),
+                new TalkStatsUpdateDTO(99L, 5, 1))))
+                .thenReturn(List.of(new TalkStatsUpdateResultDTO(1L, true), new TalkStatsUpdateResultDTO(99L, false)));
+
+        mockMvc.perform(patch("/api/tedtalks/stats")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"id\": 1, \"views\": 500}, {\"id\": 99, \"views\": 5, \"likes\": 1}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].updated").value(true))
+                .andExpect(jsonPath("$[1].id").value(99))
+                .andExpect(jsonPath("$[1].updated").value(false));
+    }
+
+    @Test
+    void incrementStats_ShouldAcceptTheIncrement() throws Exception {
+        mockMvc.perform(post("/api/tedtalks/1/stats/increments")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"views\": 3, \"likes\": 1}"))
+                .andExpect(status().isAccepted());
 
-        verify(tedTalkApiService, times(1)).searchByAuthor("Nonexistent");
+        verify(tedTalkApiService).incrementViewsAndLikes(1L, new TedTalkStatsIncrementDTO(3, 1));
     }
 
     @Test
@@ -198,6 +372,6 @@ class TedTalkControllerTest {
         mockMvc.perform(get("/api/tedtalks/search/author"))
                 .andExpect(status().isBadRequest());
 
-        verify(tedTalkApiService, never()).searchByAuthor(any());
+        verify(tedTalkApiService, never()).searchByAuthor(any(), any(), anyInt());
     }
 }
\ No newline at end of file
@@ -1,18 +1,42 @@
 package com.io.tedtalk.repository;
 
 import com.io.tedtalk.dto.InfluencerDTO;
+import com.io.tedtalk.dto.MostInfluentialSpeakerDTO;
+import com.io.tedtalk.dto.TalkStatsDeltaDTO;
+import com.io.tedtalk.dto.TalkStatsUpdateDTO;
+import com.io.tedtalk.dto.TalkTextDTO;
 import com.io.tedtalk.model.TedTalk;
+import jakarta.persistence.QueryTimeoutException;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.TestPropertySource;
 
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.util.List;
 import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @DataJpaTest
+@Import(TedTalkRepositoryTest.InsertCounterConfig.class)
+@TestPropertySource(properties = "tedtalk.jdbc.batch-size=50")
 class TedTalkRepositoryTest {
 
     @Autowired
@@ -50,4 +74,227 @@ class TedTalkRepositoryTest {
         assertEquals("Author A", result.getFirst().speaker());
         assertEquals(3000L, result.getFirst().totalViews()); // 1000 + 2000
     }
-}
\ No newline at end of file
+
+    @Test
+    void findMostInfluentialTalksPerYear_shouldRankTheTopTalksOfEachYear() {
+        entityManager.persist(new TedTalk("Talk 1", "Author A", "June 2022", 100, 10, "http://example.com/year/1"));
+        entityManager.persist(new TedTalk("Talk 2", "Author B", "July 2022", 300, 30, "http://example.com/year/2"));
+        entityManager.persist(new TedTalk("Talk 3", "Author C", "May 2022", 200, 20, "http://example.com/year/3"));
+        entityManager.persist(new TedTalk("Talk 4", "Author D", "June 2023", 50, 5, "http://example.com/year/4"));
+        entityManager.flush();
+
+        assertEquals(List.of(new MostInfluentialSpeakerDTO(2022, "Author B", 300, 30, 330),
+                        new MostInfluentialSpeakerDTO(2023, "Author D", 50, 5, 55)),
+                tedTalkRepository.findMostInfluentialTalksPerYear(1));
+        assertEquals(List.of("Author B", "Author C", "Author D"),
+                tedTalkRepository.findMostInfluentialTalksPerYear(2).stream().map(MostInfluentialSpeakerDTO::author).toList());
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmark_MostInfluentialTalksPerYear() {
+        int rows = Integer.getInteger("benchmark.rows", 1_000_000);
+        Random random = new Random(42);
+        for (int start = 0; start < rows; start += 10_000) {
+            tedTalkRepository.insertAll(IntStream.range(start, Math.min(start + 10_000, rows))
+                    .mapToObj(i -> new TedTalk("Talk " + i, "Author " + random.nextInt(50_000),
+                            "June " + (1990 + random.nextInt(35)), random.nextInt(1_000_000), random.nextInt(50_000),
+                            "http://example.com/benchmark/" + i))
+                    .toList());
+        }
+
+        long start = System.nanoTime();
+        List<MostInfluentialSpeakerDTO> windowed = tedTalkRepository.findMostInfluentialTalksPerYear(1);
+        long windowNanos = System.nanoTime() - start;
+
+        // The correlated subquery this replaced, which grows with the square of the rows, cut off after two minutes
+        int timeoutMillis = 120_000;
+        start = System.nanoTime();
+        try {
+            List<MostInfluentialSpeakerDTO> correlated = entityManager.getEntityManager().createQuery("""
+                    SELECT new com.io.tedtalk.dto.MostInfluentialSpeakerDTO(t.year, t.author, t.views, t.likes, (t.views + t.likes))
+                    FROM TedTalk t
+                    WHERE (t.views + t.likes) = (SELECT MAX(t2.views + t2.likes) FROM TedTalk t2 WHERE t2.year = t.year)
+                    GROUP BY t.year, t.author, t.views, t.likes
+                    ORDER BY t.year ASC
+                    """, MostInfluentialSpeakerDTO.class)
+                    .setHint("jakarta.persistence.query.timeout", timeoutMillis)
+                    .getResultList();
+            assertEquals(correlated.stream().map(MostInfluentialSpeakerDTO::year).distinct().toList(),
+                    windowed.stream().map(MostInfluentialSpeakerDTO::year).toList());
+        } catch (QueryTimeoutException e) {
+            System.out.printf("correlated subquery timed out after %d ms%n", timeoutMillis);
+        }
+        long correlatedNanos = System.nanoTime() - start;
+
+        System.out.printf("%d rows: correlated subquery %d ms, window function %d ms, speed-up: %.1fx%n", rows,
+                correlatedNanos / 1_000_000, windowNanos / 1_000_000, (double) correlatedNanos / windowNanos);
+    }
+
+    @Test
+    void findTalkTexts_shouldPageAuthorsAndTitlesInIdOrder() {
+        List<Long> ids = IntStream.rangeClosed(1, 5)
+                .mapToObj(i -> entityManager.persist(new TedTalk("Talk " + i, "Author " + i,
+                        "June 2023", i, i, "http://example.com/page/" + i)).getId())
+                .toList();
+        entityManager.flush();
+
+        List<TalkTextDTO> first = tedTalkRepository.findTalkTexts(0, Limit.of(3));
+        List<TalkTextDTO> second = tedTalkRepository.findTalkTexts(first.getLast().id(), Limit.of(3));
+
+        assertEquals(new TalkTextDTO(ids.get(0), "Author 1", "Talk 1", 1, 1), first.getFirst());
+        assertEquals(ids.subList(3, 5), second.stream().map(TalkTextDTO::id).toList());
+        assertEquals(List.of(ids.get(1)),
+                tedTalkRepository.findTalkTextsByLinks(List.of("http://example.com/page/2")).stream().map(TalkTextDTO::id).toList());
+    }
+
+    @Test
+    void streamAllByOrderByIdAsc_shouldReturnAllTalksInIdOrder() {
+        tedTalkRepository.insertAll(IntStream.rangeClosed(1, 30)
+                .mapToObj(i -> new TedTalk("Talk " + i, "Author", "June 2023", i, i, "http://example.com/stream/" + i))
+                .toList());
+
+        try (Stream<TedTalk> talks = tedTalkRepository.streamAllByOrderByIdAsc()) {
+            assertEquals(IntStream.rangeClosed(1, 30).mapToObj(i -> "Talk " + i).toList(),
+                    talks.map(TedTalk::getTitle).toList());
+        }
+    }
+
+    @Test
+    void insertAll_shouldSendOneInsertPerBatchInsteadOfOnePerRow() {
+        List<TedTalk> talks = IntStream.rangeClosed(1, 120)
+                .mapToObj(i -> new TedTalk("Talk " + i, "Author " + i, "June 2023", i, i, "http://example.com/bulk/" + i))
+                .toList();
+
+        InsertCounterConfig.INSERTS.set(0);
+        tedTalkRepository.saveAll(talks.subList(0, 60));
+        entityManager.flush();
+        int saveAllInserts = InsertCounterConfig.INSERTS.getAndSet(0);
+
+        int inserted = tedTalkRepository.insertAll(talks.subList(60, 120));
+        int insertAllInserts = InsertCounterConfig.INSERTS.get();
+
+        assertEquals(60, saveAllInserts);
+        assertEquals(60, inserted);
+        assertEquals(2, insertAllInserts); // 60 rows in batches of 50
+        assertEquals(120, tedTalkRepository.count());
+        assertEquals("June 2023", tedTalkRepository.findByLink("http://example.com/bulk/120").orElseThrow().getDate());
+    }
+
+    @Test
+    void upsertAll_shouldInsertNewLinksAndOverwriteStoredOnesInPlace() {
+        TedTalk stored = entityManager.persistFlushFind(
+                new TedTalk("Old title", "Author", "June 2023", 1000, 100, "http://example.com/upsert/1"));
+
+        int written = tedTalkRepository.upsertAll(List.of(
+                new TedTalk("New title", "Author", "July 2023", 2000, 200, "http://example.com/upsert/1"),
+                new TedTalk("Other", "Other author", "May 2020", 10, 1, "http://example.com/upsert/2")));
+        entityManager.clear();
+
+        assertEquals(2, written);
+        assertEquals(2, tedTalkRepository.count());
+        TedTalk updated = tedTalkRepository.findById(stored.getId()).orElseThrow();
+        assertEquals("New title", updated.getTitle());
+        assertEquals("July 2023", updated.getDate());
+        assertEquals(2200L, updated.getInfluenceScore());
+        assertTrue(tedTalkRepository.findByLink("http://example.com/upsert/2").isPresent());
+    }
+
+    @Test
+    void findExistingIds_shouldReturnOnlyStoredIds() {
+        TedTalk stored = entityManager.persistFlushFind(
+                new TedTalk("Talk", "Author", "June 2023", 1, 1, "http://example.com/existing"));
+
+        assertEquals(List.of(stored.getId()), tedTalkRepository.findExistingIds(List.of(stored.getId(), stored.getId() + 1)));
+    }
+
+    @Test
+    void addStats_shouldAddToTheStoredCountsInBatches() {
+        TedTalk talk = entityManager.persistFlushFind(
+                new TedTalk("Talk", "Author", "June 2023", 1000, 100, "http://example.com/stats"));
+
+        InsertCounterConfig.INSERTS.set(0);
+        tedTalkRepository.addStats(List.of(new TalkStatsDeltaDTO(talk.getId(), 5, 1),
+                new TalkStatsDeltaDTO(talk.getId() + 1000, 5, 1)));
+        entityManager.clear();
+
+        TedTalk updated = tedTalkRepository.findById(talk.getId()).orElseThrow();
+        assertEquals(1005, updated.getViews());
+        assertEquals(101, updated.getLikes());
+        assertEquals(1106L, updated.getInfluenceScore());
+        assertEquals(0, InsertCounterConfig.INSERTS.get());
+    }
+
+    @Test
+    void addStats_shouldRejectCountsPastTheIntegerRangeAsADataIntegrityViolation() {
+        TedTalk talk = entityManager.persistFlushFind(
+                new TedTalk("Talk", "Author", "June 2023", 1000, 100, "http://example.com/overflow"));
+
+        assertThrows(DataIntegrityViolationException.class, () -> tedTalkRepository.addStats(
+                List.of(new TalkStatsDeltaDTO(talk.getId(), 3_000_000_000L, 0))));
+    }
+
+    @Test
+    void updateStats_shouldSetTheGivenCountsAndReportMissingTalks() {
+        TedTalk first = entityManager.persistFlushFind(
+                new TedTalk("First", "Author", "June 2023", 1000, 100, "http://example.com/first"));
+        TedTalk second = entityManager.persistFlushFind(
+                new TedTalk("Second", "Author", "July 2023", 2000, 200, "http://example.com/second"));
+
+        int[] counts = tedTalkRepository.updateStats(List.of(new TalkStatsUpdateDTO(first.getId(), 1500, null),
+                new TalkStatsUpdateDTO(second.getId() + 1000, 5, 1),
+                new TalkStatsUpdateDTO(second.getId(), null, 250)));
+        entityManager.clear();
+
+        assertArrayEquals(new int[]{1, 0, 1}, counts);
+        TedTalk updatedFirst = tedTalkRepository.findById(first.getId()).orElseThrow();
+        assertEquals(1500, updatedFirst.getViews());
+        assertEquals(100, updatedFirst.getLikes());
+        TedTalk updatedSecond = tedTalkRepository.findById(second.getId()).orElseThrow();
+        assertEquals(2000, updatedSecond.getViews());
+        assertEquals(250, updatedSecond.getLikes());
+        assertEquals(2250L, updatedSecond.getInfluenceScore());
+    }
+
+    /**
+     * Counts executions of INSERT statements sent to the database, a JDBC batch counting once.
+     */
+    @TestConfiguration
+    static class InsertCounterConfig {
+
+        static final AtomicInteger INSERTS = new AtomicInteger();
+
+        @Bean
+        static BeanPostProcessor insertCountingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? proxy(DataSource.class, dataSource, null) : bean;
+                }
+            };
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, T target, String sql) {
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (p, method, args) -> {
+                if (sql != null && sql.stripLeading().toLowerCase().startsWith("insert")
+                        && method.getName().startsWith("execute")) {
+                    INSERTS.incrementAndGet();
+                }
+                Object result;
+                try {
+                    result = method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+                if (result instanceof Connection connection) {
+                    return proxy(Connection.class, connection, null);
+                }
+                if (result instanceof PreparedStatement statement && args != null && args[0] instanceof String statementSql) {
+                    return proxy(PreparedStatement.class, statement, statementSql);
+                }
+                return result;
+            });
+        }
+    }
+}
@@ -1,44 +1,83 @@
 package com.io.tedtalk.service;
 
+import com.io.tedtalk.dto.ImportError;
+import com.io.tedtalk.dto.ImportErrorCode;
+import com.io.tedtalk.dto.ImportFormat;
+import com.io.tedtalk.dto.ImportJobStatus;
+import com.io.tedtalk.dto.ImportMode;
 import com.io.tedtalk.dto.ImportResponse;
 import com.io.tedtalk.model.TedTalk;
 import com.io.tedtalk.repository.TedTalkRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
-import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
-
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static com.io.tedtalk.batch.CsvImportJobConfig.JOB_NAME;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import org.springframework.web.multipart.MultipartFile;
-
-import java.util.Optional;
+import org.springframework.web.server.ResponseStatusException;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
-@ExtendWith(MockitoExtension.class)
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:csv-import-test;DB_CLOSE_DELAY=-1",
+        "tedtalk.import.chunk-size=2",
+        "tedtalk.import.parser-threads=4",
+        "tedtalk.import.error-sample-size=10",
+        "tedtalk.import.segment-size=64B",
+        "tedtalk.import.local-dir=${java.io.tmpdir}/tedtalk-local-import-test"
+})
 class CsvImportServiceTest {
 
-    @Mock
+    @MockitoSpyBean
     private TedTalkRepository tedTalkRepository;
 
-    @InjectMocks
+    @Autowired
+    private JobExplorer jobExplorer;
+
+    @Autowired
     private CsvImportService csvImportService;
 
+    @Autowired
+    private TalkSearchIndex talkSearchIndex;
+
+    @Value("${tedtalk.import.local-dir}")
+    private Path localDir;
+
     private final String VALID_HEADER = "title,author,date,views,likes,link";
     private final String VALID_ROW = "The power of vulnerability,Brené Brown,June 2010,50000000,2500000,https://example.com/brown";
 
     @BeforeEach
     void setUp() {
+        tedTalkRepository.deleteAll();
+        talkSearchIndex.rebuild();
     }
     @Test
     void importTedTalksFromCsv_WithNonCsvFile_ShouldThrowException() {
@@ -79,15 +118,13 @@ class CsvImportServiceTest {
                 content.getBytes()
         );
 
-        when(tedTalkRepository.findByLink(any())).thenReturn(Optional.empty());
-        when(tedTalkRepository.saveAll(any())).thenReturn(List.of(new TedTalk()));
 
         ImportResponse response = csvImportService.importTedTalksFromCsv(file);
 
         assertEquals(1, response.importedCount());
         assertEquals(0, response.skippedCount());
         assertEquals(1, response.errorCount());
-        assertTrue(response.messages().contains("Row 2: Empty row"));
+        assertTrue(messages(response.errors()).contains("Row 2: Empty row."));
     }
 
     @Test
@@ -105,7 +142,7 @@ class CsvImportServiceTest {
         assertEquals(0, response.importedCount());
         assertEquals(0, response.skippedCount());
         assertEquals(1, response.errorCount());
-        assertTrue(response.messages().stream()
+        assertTrue(messages(response.errors()).stream()
                 .anyMatch(msg -> msg.contains("Expected 6 columns")));
     }
 
@@ -124,7 +161,7 @@ class CsvImportServiceTest {
         assertEquals(0, response.importedCount());
         assertEquals(0, response.skippedCount());
         assertEquals(1, response.errorCount());
-        assertTrue(response.messages().stream()
+        assertTrue(messages(response.errors()).stream()
                 .anyMatch(msg -> msg.contains("One or more fields are empty")));
     }
 
@@ -144,7 +181,35 @@ class CsvImportServiceTest {
         assertEquals(0, response.importedCount());
         assertEquals(0, response.skippedCount());
         assertEquals(1, response.errorCount());
-        assertTrue(response.messages().stream()
+        assertTrue(messages(response.errors()).stream()
+                .anyMatch(msg -> msg.contains("Invalid date format")));
+    }
+
+    @Test
+    void importTedTalksFromCsv_WithNegativeCounts_ShouldSkipAndCountErrors() throws Exception {
+        String content = VALID_HEADER
+                + "\nThe power of vulnerability,Brené Brown,June 2010,-5,2500000,https://example.com/brown"
+                + "\nListening to shame,Brené Brown,March 2012,300,-1,https://example.com/shame";
+        MultipartFile file = new MockMultipartFile("file", "test.csv", "text/csv", content.getBytes());
+
+        ImportResponse response = csvImportService.importTedTalksFromCsv(file);
+
+        assertEquals(0, response.importedCount());
+        assertEquals(2, response.errorCount());
+        assertEquals(List.of("Row 2: Invalid integer (views).", "Row 3: Invalid integer (likes)."),
+                messages(response.errors()));
+    }
+
+    @Test
+    void importTedTalksFromCsv_WithYearOutOfRange_ShouldSkipAndCountError() throws Exception {
+        String content = VALID_HEADER + "\nThe power of vulnerability,Brené Brown,June 1850,50000000,2500000,https://example.com/brown";
+        MultipartFile file = new MockMultipartFile("file", "test.csv", "text/csv", content.getBytes());
+
+        ImportResponse response = csvImportService.importTedTalksFromCsv(file);
+
+        assertEquals(0, response.importedCount());
+        assertEquals(1, response.errorCount());
+        assertTrue(messages(response.errors()).stream()
                 .anyMatch(msg -> msg.contains("Invalid date format")));
     }
 
@@ -164,7 +229,7 @@ class CsvImportServiceTest {
         assertEquals(0, response.importedCount());
         assertEquals(0, response.skippedCount());
         assertEquals(1, response.errorCount());
-        assertTrue(response.messages().stream()
+        assertTrue(messages(response.errors()).stream()
                 .anyMatch(msg -> msg.contains("Invalid URL format")));
     }
 
@@ -184,7 +249,7 @@ class CsvImportServiceTest {
         assertEquals(1, response.importedCount());
         assertEquals(0, response.skippedCount());
         assertEquals(1, response.errorCount());
-        assertTrue(response.messages().stream()
+        assertTrue(messages(response.errors()).stream()
                 .anyMatch(msg -> msg.contains("Duplicate link in CSV")));
     }
 
@@ -198,17 +263,34 @@ class CsvImportServiceTest {
                 content.getBytes()
         );
 
-        when(tedTalkRepository.findByLink(any())).thenReturn(Optional.of(new TedTalk()));
+        tedTalkRepository.save(new TedTalk("The power of vulnerability", "Brené Brown", "June 2010", 1, 1, "https://example.com/brown"));
 
         ImportResponse response = csvImportService.importTedTalksFromCsv(file);
 
         assertEquals(0, response.importedCount());
         assertEquals(1, response.skippedCount());
         assertEquals(0, response.errorCount());
-        assertTrue(response.messages().stream()
+        assertTrue(messages(response.errors()).stream()
                 .anyMatch(msg -> msg.contains("Skipped due to duplicate link")));
     }
 
+    @Test
+    void importTedTalksFromCsv_WithExistingLinkRepeatedInALaterChunk_ShouldReportADuplicateInCsv() throws Exception {
+        String other = "How to speak so that people want to listen,Julian Treasure,March 2014,45000000,2200000,https://example.com/treasure";
+        tedTalkRepository.save(new TedTalk("The power of vulnerability", "Brené Brown", "June 2010", 1, 1, "https://example.com/brown"));
+
+        // With two rows per chunk the second copy of the stored link is in the next chunk
+        ImportResponse response = csvImportService.importTedTalksFromCsv(new MockMultipartFile("file", "test.csv", "text/csv",
+                (VALID_HEADER + "\n" + VALID_ROW + "\n" + other + "\n" + VALID_ROW).getBytes()));
+
+        assertEquals(1, response.importedCount());
+        assertEquals(1, response.skippedCount());
+        assertEquals(1, response.errorCount());
+        List<String> messages = messages(response.errors());
+        assertTrue(messages.get(0).startsWith("Row 2: Skipped due to duplicate link"));
+        assertTrue(messages.get(1).startsWith("Row 4: Duplicate link in CSV"));
+    }
+
     @Test
     void importTedTalksFromCsv_WithValidRows_ShouldImportSuccessfully() throws Exception {
         String content = VALID_HEADER + "\n" + VALID_ROW;
@@ -219,16 +301,14 @@ class CsvImportServiceTest {
                 content.getBytes()
         );
 
-        when(tedTalkRepository.findByLink(any())).thenReturn(Optional.empty());
-        when(tedTalkRepository.saveAll(any())).thenReturn(List.of(new TedTalk()));
 
         ImportResponse response = csvImportService.importTedTalksFromCsv(file);
 
         assertEquals(1, response.importedCount());
         assertEquals(0, response.skippedCount());
         assertEquals(0, response.errorCount());
-        assertTrue(response.messages().isEmpty());
-        verify(tedTalkRepository, times(1)).saveAll(any());
+        assertTrue(messages(response.errors()).isEmpty());
+        verify(tedTalkRepository, times(1)).insertAll(any());
     }
 
     @Test
@@ -242,15 +322,13 @@ class CsvImportServiceTest {
                 content.getBytes()
         );
 
-        when(tedTalkRepository.findByLink(any())).thenReturn(Optional.empty());
-        when(tedTalkRepository.saveAll(any())).thenReturn(List.of(new TedTalk(), new TedTalk()));
 
         ImportResponse response = csvImportService.importTedTalksFromCsv(file);
 
         assertEquals(2, response.importedCount());
         assertEquals(0, response.skippedCount());
         assertEquals(0, response.errorCount());
-        verify(tedTalkRepository, times(1)).saveAll(any());
+        verify(tedTalkRepository, times(1)).insertAll(any());
     }
     @Test
     void importTedTalksFromCsv_WithIOException_ShouldThrowException() throws Exception {
@@ -274,11 +352,334 @@ class CsvImportServiceTest {
                 content.getBytes()
         );
 
-        when(tedTalkRepository.findByLink(any())).thenThrow(new RuntimeException("Test exception"));
+        doThrow(new RuntimeException("Test exception")).when(tedTalkRepository).findExistingLinks(any());
 
         Exception exception = assertThrows(Exception.class, () -> {
             csvImportService.importTedTalksFromCsv(file);
         });
         assertTrue(exception.getMessage().contains("Error processing file, RowNumber at the time of error is:"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void importTedTalksFromCsv_WhenChunkFails_ShouldResumeFromLastCommittedChunk() throws Exception {
+        StringBuilder content = new StringBuilder(VALID_HEADER);
+        for (int i = 1; i <= 5; i++) {
+            content.append("\nTalk ").append(i).append(",Author ").append(i).append(",June 2010,100,10,https://example.com/talk-").append(i);
+        }
+        MultipartFile file = new MockMultipartFile(
+                "file",
+                "test.csv",
+                "text/csv",
+                content.toString().getBytes()
+        );
+
+        // First chunk (rows 2-3) commits, second chunk (rows 4-5) fails once.
+        Answer<?> realMethod = mockingDetails(tedTalkRepository).getMockCreationSettings().getDefaultAnswer();
+        doAnswer(realMethod).doThrow(new RuntimeException("Connection lost")).doAnswer(realMethod)
+                .when(tedTalkRepository).findExistingLinks(any());
+
+        assertThrows(Exception.class, () -> csvImportService.importTedTalksFromCsv(file));
+        assertEquals(2, tedTalkRepository.count());
+
+        JobExecution failed = jobExplorer.getLastJobExecution(jobExplorer.getLastJobInstance(JOB_NAME));
+        ImportResponse response = csvImportService.restartImport(failed.getId());
+
+        assertEquals(5, response.importedCount());
+        assertEquals(0, response.skippedCount());
+        assertEquals(0, response.errorCount());
+        assertEquals(5, tedTalkRepository.count());
+        // Rows of the committed chunk are not read again by the restart.
+        verify(tedTalkRepository).findExistingLinks(Set.of("https://example.com/talk-1", "https://example.com/talk-2"));
+        verify(tedTalkRepository, times(2)).findExistingLinks(Set.of("https://example.com/talk-3", "https://example.com/talk-4"));
+        verify(tedTalkRepository).findExistingLinks(Set.of("https://example.com/talk-5"));
+    }
+
+    @Test
+    void importTedTalksFromCsv_ShouldResolveExistingLinksOncePerChunk() throws Exception {
+        tedTalkRepository.save(new TedTalk("Talk 2", "Author 2", "June 2010", 1, 1, "https://example.com/talk-2"));
+        StringBuilder content = new StringBuilder(VALID_HEADER);
+        for (int i = 1; i <= 4; i++) {
+            content.append("\nTalk ").append(i).append(",Author ").append(i).append(",June 2010,100,10,https://example.com/talk-").append(i);
+        }
+        MultipartFile file = new MockMultipartFile(
+                "file",
+                "test.csv",
+                "text/csv",
+                content.toString().getBytes()
+        );
+
+        ImportResponse response = csvImportService.importTedTalksFromCsv(file);
+
+        assertEquals(3, response.importedCount());
+        assertEquals(1, response.skippedCount());
+        assertEquals(List.of("Row 3: Skipped due to duplicate link (link)."), messages(response.errors()));
+        verify(tedTalkRepository, times(2)).findExistingLinks(any());
+        verify(tedTalkRepository, never()).findByLink(any());
+    }
+
+    @Test
+    void importTedTalksFromCsv_WithParallelParsing_ShouldReportMessagesInRowOrder() throws Exception {
+        StringBuilder content = new StringBuilder(VALID_HEADER);
+        for (int i = 1; i <= 40; i++) {
+            String views = i % 3 == 0 ? "many" : "100";
+            content.append("\nTalk ").append(i).append(",Author ").append(i).append(",June 2010,").append(views)
+                    .append(",10,https://example.com/talk-").append(i);
+        }
+        MultipartFile file = new MockMultipartFile(
+                "file",
+                "test.csv",
+                "text/csv",
+                content.toString().getBytes()
+        );
+
+        ImportResponse response = csvImportService.importTedTalksFromCsv(file);
+
+        List<String> expected = IntStream.rangeClosed(1, 40)
+                .filter(i -> i % 3 == 0)
+                .mapToObj(i -> "Row " + (i + 1) + ": Invalid integer (views).")
+                .toList();
+        assertEquals(27, response.importedCount());
+        assertEquals(13, response.errorCount());
+        assertEquals(expected.subList(0, 10), messages(response.errors()));
+        assertTrue(response.errorsTruncated());
+        assertEquals(expected, messages(csvImportService.getImportErrors(response.jobId(), 0, 100)));
+        assertEquals(expected.subList(10, 13), messages(csvImportService.getImportErrors(response.jobId(), 10, 5)));
+    }
+
+    @Test
+    void importTedTalksFromCsv_ShouldReportErrorCodeAndColumn() throws Exception {
+        String content = VALID_HEADER + "\nThe power of vulnerability,Brené Brown,June 2010,50000000,lots,https://example.com/brown";
+        MultipartFile file = new MockMultipartFile(
+                "file",
+                "test.csv",
+                "text/csv",
+                content.getBytes()
+        );
+
+        ImportResponse response = csvImportService.importTedTalksFromCsv(file);
+
+        assertEquals(List.of(new ImportError(2, ImportErrorCode.INVALID_INTEGER, "likes")), response.errors());
+        assertFalse(response.errorsTruncated());
+    }
+
+    @Test
+    void importTedTalksFromCsv_InUpsertMode_ShouldOnlyWriteNewAndChangedRows() throws Exception {
+        String unchanged = "How to speak so that people want to listen,Julian Treasure,March 2014,45000000,2200000,https://example.com/treasure";
+        csvImportService.importTedTalksFromCsv(new MockMultipartFile("file", "test.csv", "text/csv",
+                (VALID_HEADER + "\n" + VALID_ROW + "\n" + unchanged).getBytes()));
+        clearInvocations(tedTalkRepository);
+
+        String changed = "The power of vulnerability,Brené Brown,June 2010,60000000,2600000,https://example.com/brown";
+        String added = "Do schools kill creativity?,Ken Robinson,February 2006,70000000,3000000,https://example.com/robinson";
+        ImportResponse response = csvImportService.importTedTalksFromCsv(new MockMultipartFile("file", "test.csv", "text/csv",
+                (VALID_HEADER + "\n" + changed + "\n" + unchanged + "\n" + added).getBytes()), ImportMode.UPSERT);
+
+        assertEquals(1, response.importedCount());
+        assertEquals(1, response.updatedCount());
+        assertEquals(1, response.unchangedCount());
+        assertEquals(0, response.skippedCount());
+        assertEquals(0, response.errorCount());
+        verify(tedTalkRepository, never()).insertAll(anyList());
+        verify(tedTalkRepository, times(2)).upsertAll(argThat(talks -> talks.size() == 1
+                && !talks.getFirst().getLink().equals("https://example.com/treasure")));
+        assertEquals(3, tedTalkRepository.count());
+        assertEquals(60000000, tedTalkRepository.findByLink("https://example.com/brown").orElseThrow().getViews());
+        assertTrue(talkSearchIndex.verifyInfluencers());
+    }
+
+    @Test
+    void importTedTalksFromCsv_InUpsertMode_WithStoredLinkRepeatedInALaterChunk_ShouldMergeItOnce() throws Exception {
+        tedTalkRepository.save(new TedTalk("The power of vulnerability", "Brené Brown", "June 2010", 1, 1, "https://example.com/brown"));
+        String first = "The power of vulnerability,Brené Brown,June 2010,60000000,2600000,https://example.com/brown";
+        String other = "How to speak so that people want to listen,Julian Treasure,March 2014,45000000,2200000,https://example.com/treasure";
+        String second = "The power of vulnerability,Brené Brown,June 2010,70000000,2700000,https://example.com/brown";
+
+        ImportResponse response = csvImportService.importTedTalksFromCsv(new MockMultipartFile("file", "test.csv", "text/csv",
+                (VALID_HEADER + "\n" + first + "\n" + other + "\n" + second).getBytes()), ImportMode.UPSERT);
+
+        assertEquals(1, response.importedCount());
+        assertEquals(1, response.updatedCount());
+        assertEquals(1, response.errorCount());
+        List<String> messages = messages(response.errors());
+        assertEquals(1, messages.size());
+        assertTrue(messages.getFirst().startsWith("Row 4: Duplicate link in CSV"));
+        assertEquals(60000000, tedTalkRepository.findByLink("https://example.com/brown").orElseThrow().getViews());
+    }
+
+    @Test
+    void importTedTalksFromCsv_WithQuotedTitleContainingCommas_ShouldImport() throws Exception {
+        String content = VALID_HEADER + "\n\"Yes, and: lessons from improv\",Dan Klein,June 2010,100,10,https://example.com/klein";
+        MultipartFile file = new MockMultipartFile(
+                "file",
+                "test.csv",
+                "text/csv",
+                content.getBytes()
+        );
+
+        ImportResponse response = csvImportService.importTedTalksFromCsv(file);
+
+        assertEquals(1, response.importedCount());
+        assertEquals(0, response.errorCount());
+        TedTalk imported = tedTalkRepository.findByLink("https://example.com/klein").orElseThrow();
+        assertEquals("Yes, and: lessons from improv", imported.getTitle());
+        assertArrayEquals(new long[]{imported.getId()}, talkSearchIndex.searchTitle("LESSONS FROM", 0, 10));
+        assertTrue(talkSearchIndex.verifyInfluencers());
+    }
+
+    @Test
+    void submitImport_ShouldImportInBackgroundAndReportProgress() throws Exception {
+        String row2 = "How to speak so that people want to listen,Julian Treasure,March 2014,45000000,2200000,https://example.com/treasure";
+        String content = VALID_HEADER + "\n" + VALID_ROW + "\n" + row2 + "\ninvalid";
+        MultipartFile file = new MockMultipartFile(
+                "file",
+                "test.csv",
+                "text/csv",
+                content.getBytes()
+        );
+
+        ImportJobStatus submitted = csvImportService.submitImport(file);
+        ImportJobStatus status = awaitCompletion(submitted.jobId());
+
+        assertEquals("COMPLETED", status.status());
+        assertEquals(3, status.rowsRead());
+        assertEquals(2, status.importedCount());
+        assertEquals(1, status.errorCount());
+        assertEquals(List.of("Row 4: Expected 6 columns."), messages(status.errors()));
+        assertEquals(2, tedTalkRepository.count());
+    }
+
+    @Test
+    void cancelImport_ShouldStopAfterTheChunkInProgress() throws Exception {
+        StringBuilder content = new StringBuilder(VALID_HEADER);
+        for (int i = 1; i <= 5; i++) {
+            content.append("\nTalk ").append(i).append(",Author ").append(i).append(",June 2010,100,10,https://example.com/talk-").append(i);
+        }
+        MultipartFile file = new MockMultipartFile(
+                "file",
+                "test.csv",
+                "text/csv",
+                content.toString().getBytes()
+        );
+        CountDownLatch firstChunkStarted = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        Answer<?> realMethod = mockingDetails(tedTalkRepository).getMockCreationSettings().getDefaultAnswer();
+        doAnswer(invocation -> {
+            firstChunkStarted.countDown();
+            cancelled.await(5, TimeUnit.SECONDS);
+            return realMethod.answer(invocation);
+        }).when(tedTalkRepository).findExistingLinks(any());
+
+        ImportJobStatus submitted = csvImportService.submitImport(file);
+        assertTrue(firstChunkStarted.await(5, TimeUnit.SECONDS));
+        csvImportService.cancelImport(submitted.jobId());
+        cancelled.countDown();
+        ImportJobStatus status = awaitCompletion(submitted.jobId());
+
+        assertEquals("STOPPED", status.status());
+        assertEquals(2, status.importedCount());
+        assertEquals(2, tedTalkRepository.count());
+    }
+
+    @Test
+    void importTedTalksFromCsv_WithGzipFile_ShouldDecompressWhileReading() throws Exception {
+        String row2 = "How to speak so that people want to listen,Julian Treasure,March 2014,45000000,2200000,https://example.com/treasure";
+        MultipartFile file = new MockMultipartFile("file", "talks.csv.gz", "application/gzip",
+                gzip(VALID_HEADER + "\n" + VALID_ROW + "\n" + row2));
+
+        ImportResponse response = csvImportService.importTedTalksFromCsv(file);
+
+        assertEquals(2, response.importedCount());
+        assertEquals(0, response.errorCount());
+        assertTrue(tedTalkRepository.findByLink("https://example.com/treasure").isPresent());
+    }
+
+    @Test
+    void importTedTalksFromCsv_WithZipOfSeveralCsvFiles_ShouldImportThemAsOneFile() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            zip.putNextEntry(new ZipEntry("2010.csv"));
+            zip.write((VALID_HEADER + "\n" + VALID_ROW + "\n").getBytes(StandardCharsets.UTF_8));
+            zip.putNextEntry(new ZipEntry("README.txt"));
+            zip.write("not a csv".getBytes(StandardCharsets.UTF_8));
+            zip.putNextEntry(new ZipEntry("2014.csv"));
+            zip.write((VALID_HEADER + "\ntitle,author\n"
+                    + "How to speak so that people want to listen,Julian Treasure,March 2014,45000000,2200000,https://example.com/treasure")
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+
+        ImportResponse response = csvImportService.importTedTalksFromCsv(
+                new MockMultipartFile("file", "talks.zip", "application/zip", bytes.toByteArray()));
+
+        assertEquals(2, response.importedCount());
+        assertEquals(List.of("Row 4: Expected 6 columns."), messages(response.errors()));
+    }
+
+    @Test
+    void importTedTalksFromCsv_WithStreamedBody_ShouldImport() throws Exception {
+        ImportResponse response = csvImportService.importTedTalksFromCsv(
+                new ByteArrayInputStream(gzip(VALID_HEADER + "\n" + VALID_ROW)), ImportFormat.GZIP, ImportMode.INSERT);
+
+        assertEquals(1, response.importedCount());
+        assertEquals(1, tedTalkRepository.count());
+    }
+
+    @Test
+    void importTedTalksFromCsv_WithStreamedBodyWithoutHeader_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> csvImportService.importTedTalksFromCsv(
+                new ByteArrayInputStream(VALID_ROW.getBytes(StandardCharsets.UTF_8)), ImportFormat.CSV, ImportMode.INSERT));
+    }
+
+    @Test
+    void submitLocalImport_ShouldReadTheFileInPlaceAcrossSegments() throws Exception {
+        // With 64 byte segments the line break inside the quoted title ends a segment
+        String multiLine = "\"What we learned from a very long experiment in listening to each other\n"
+                + "(part two)\",Someone,June 2010,100,10,https://example.com/listening";
+        Files.createDirectories(localDir);
+        Path file = localDir.resolve("talks.csv");
+        Files.writeString(file, VALID_HEADER + "\n" + VALID_ROW + "\n" + multiLine + "\ninvalid\n\n"
+                + "Talk,Author,June 2010,1,1,not-a-url\n");
+
+        ImportJobStatus status = awaitCompletion(csvImportService.submitLocalImport("talks.csv", ImportMode.INSERT).jobId());
+
+        assertEquals("COMPLETED", status.status());
+        assertEquals(2, status.importedCount());
+        assertEquals(List.of("Row 5: Expected 6 columns.", "Row 6: Empty row.", "Row 7: Invalid URL format (link)."),
+                messages(status.errors()));
+        assertEquals("What we learned from a very long experiment in listening to each other\n(part two)",
+                tedTalkRepository.findByLink("https://example.com/listening").orElseThrow().getTitle());
+        assertTrue(Files.exists(file));
+    }
+
+    @Test
+    void submitLocalImport_OutsideTheLocalDirectory_ShouldBeForbidden() throws Exception {
+        Files.createDirectories(localDir);
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> csvImportService.submitLocalImport("../talks.csv", ImportMode.INSERT));
+
+        assertEquals(HttpStatus.FORBIDDEN, e.getStatusCode());
+    }
+
+    private static byte[] gzip(String content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    private static List<String> messages(List<ImportError> errors) {
+        return errors.stream().map(ImportError::message).toList();
+    }
+
+    private ImportJobStatus awaitCompletion(long jobId) throws Exception {
+        for (int attempt = 0; attempt < 200; attempt++) {
+            ImportJobStatus status = csvImportService.getImportStatus(jobId);
+            if (!List.of("STARTING", "STARTED", "STOPPING").contains(status.status())) {
+                return status;
+            }
+            Thread.sleep(50);
+        }
+        return fail("Import " + jobId + " did not finish in time");
+    }
+}
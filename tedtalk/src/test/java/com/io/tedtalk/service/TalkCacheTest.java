@@ -0,0 +1,166 @@
+package com.io.tedtalk.service;
+
+import com.io.tedtalk.dto.MostInfluentialSpeakerDTO;
+import com.io.tedtalk.dto.TedTalkBulkItemDTO;
+import com.io.tedtalk.dto.TedTalkStatsUpdateDTO;
+import com.io.tedtalk.model.TedTalk;
+import com.io.tedtalk.repository.TedTalkRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:talk-cache-test;DB_CLOSE_DELAY=-1")
+class TalkCacheTest {
+
+    @MockitoSpyBean
+    private TedTalkRepository tedTalkRepository;
+
+    @Autowired
+    private TedTalkApiService tedTalkApiService;
+
+    @Autowired
+    private CsvImportService csvImportService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private TedTalk talk;
+
+    @BeforeEach
+    void setUp() {
+        tedTalkRepository.deleteAll();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        talk = tedTalkApiService.createTedTalk(
+                new TedTalk("The power of vulnerability", "Brené Brown", "June 2010", 500, 50, "https://example.com/brown"));
+        clearInvocations(tedTalkRepository);
+    }
+
+    @Test
+    void getTedTalkById_ShouldServeRepeatedReadsFromTheCacheUntilTheTalkChanges() {
+        double hits = cacheGets("hit");
+
+        tedTalkApiService.getTedTalkById(talk.getId());
+        tedTalkApiService.getTedTalkById(talk.getId());
+        verify(tedTalkRepository, times(1)).findById(talk.getId());
+        assertEquals(hits + 1, cacheGets("hit"));
+
+        tedTalkApiService.updateViewsAndLikes(talk.getId(), new TedTalkStatsUpdateDTO(900, null));
+        assertEquals(900, tedTalkApiService.getTedTalkById(talk.getId()).getViews());
+        assertEquals(950L, tedTalkApiService.getTedTalkById(talk.getId()).getInfluenceScore());
+
+        tedTalkApiService.deleteTedTalk(talk.getId());
+        assertThrows(ResponseStatusException.class, () -> tedTalkApiService.getTedTalkById(talk.getId()));
+    }
+
+    @Test
+    void bulkWrites_ShouldEvictAndReindexTheTalksOnceCommitted() {
+        tedTalkApiService.getTedTalkById(talk.getId());
+
+        tedTalkApiService.upsertTedTalks(List.of(
+                new TedTalkBulkItemDTO("The power of vulnerability", "Brené Brown", "June 2010", 700, 70, talk.getLink()),
+                new TedTalkBulkItemDTO("Listening to shame", "Brené Brown", "March 2012", 300, 30, "https://example.com/shame")));
+        assertEquals(700, tedTalkApiService.getTedTalkById(talk.getId()).getViews());
+        assertEquals(1, tedTalkApiService.searchByTitle("shame", null, 10).items().size());
+
+        tedTalkApiService.deleteTedTalks(List.of(talk.getId()));
+        assertThrows(ResponseStatusException.class, () -> tedTalkApiService.getTedTalkById(talk.getId()));
+        assertTrue(tedTalkApiService.searchByTitle("vulnerability", null, 10).items().isEmpty());
+    }
+
+    @Test
+    void getMostInfluentialTalksPerYear_ShouldBeEvictedByCreatesAndImports() throws Exception {
+        assertEquals(1, tedTalkApiService.getMostInfluentialTalksPerYear(5).size());
+        assertEquals(1, tedTalkApiService.getMostInfluentialTalksPerYear(5).size());
+        verify(tedTalkRepository, times(1)).findMostInfluentialTalksPerYear(anyInt());
+
+        tedTalkApiService.createTedTalk(
+                new TedTalk("Listening to shame", "Brené Brown", "March 2012", 300, 30, "https://example.com/shame"));
+        assertEquals(2, tedTalkApiService.getMostInfluentialTalksPerYear(5).size());
+
+        csvImportService.importTedTalksFromCsv(new MockMultipartFile("file", "talks.csv", "text/csv",
+                ("title,author,date,views,likes,link\n"
+                        + "Do schools kill creativity?,Ken Robinson,February 2006,900,90,https://example.com/robinson")
+                        .getBytes()));
+        assertEquals(3, tedTalkApiService.getMostInfluentialTalksPerYear(5).size());
+    }
+
+    @Test
+    void getMostInfluentialTalksPerYear_ShouldRunOneQueryForConcurrentCallers() throws Exception {
+        doAnswer(invocation -> {
+            Thread.sleep(200);
+            return List.of(new MostInfluentialSpeakerDTO(2010, "Brené Brown", 500, 50, 550));
+        }).when(tedTalkRepository).findMostInfluentialTalksPerYear(anyInt());
+        int callers = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<List<MostInfluentialSpeakerDTO>>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return tedTalkApiService.getMostInfluentialTalksPerYear(1);
+                }));
+            }
+            start.countDown();
+            for (Future<List<MostInfluentialSpeakerDTO>> result : results) {
+                assertEquals("Brené Brown", result.get(10, TimeUnit.SECONDS).getFirst().author());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(tedTalkRepository, times(1)).findMostInfluentialTalksPerYear(1);
+    }
+
+    @Test
+    void getMostInfluentialTalksPerYear_ShouldNotKeepARankingReadBeforeACommitThatEvictedIt() throws Exception {
+        CountDownLatch read = new CountDownLatch(1);
+        CountDownLatch committed = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            TedTalk stored = tedTalkRepository.findById(talk.getId()).orElseThrow();
+            List<MostInfluentialSpeakerDTO> ranking = List.of(new MostInfluentialSpeakerDTO(stored.getYear(),
+                    stored.getAuthor(), stored.getViews(), stored.getLikes(), stored.getInfluenceScore()));
+            read.countDown();
+            committed.await(10, TimeUnit.SECONDS);
+            return ranking;
+        }).when(tedTalkRepository).findMostInfluentialTalksPerYear(anyInt());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<MostInfluentialSpeakerDTO>> miss = executor.submit(() -> tedTalkApiService.getMostInfluentialTalksPerYear(1));
+            assertTrue(read.await(10, TimeUnit.SECONDS));
+            tedTalkApiService.updateViewsAndLikes(talk.getId(), new TedTalkStatsUpdateDTO(900, null));
+            committed.countDown();
+            assertEquals(500, miss.get(10, TimeUnit.SECONDS).getFirst().views());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(900, tedTalkApiService.getMostInfluentialTalksPerYear(1).getFirst().views());
+    }
+
+    private double cacheGets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", TalkCache.TALKS).tag("result", result)
+                .functionCounter().count();
+    }
+}
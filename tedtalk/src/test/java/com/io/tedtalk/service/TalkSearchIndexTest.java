@@ -0,0 +1,98 @@
+package com.io.tedtalk.service;
+
+import com.io.tedtalk.dto.CompletionDTO;
+import com.io.tedtalk.dto.FuzzyAuthorDTO;
+import com.io.tedtalk.dto.InfluencerDTO;
+import com.io.tedtalk.dto.TalkTextDTO;
+import com.io.tedtalk.repository.TedTalkRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TalkSearchIndexTest {
+
+    @Mock
+    private TedTalkRepository tedTalkRepository;
+
+    @InjectMocks
+    private TalkSearchIndex talkSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        when(tedTalkRepository.findTalkTexts(0, Limit.of(10_000))).thenReturn(List.of(
+                new TalkTextDTO(1L, "Brené Brown", "The power of vulnerability", 500, 50),
+                new TalkTextDTO(2L, "Brené Brown", "Listening to shame", 300, 30),
+                new TalkTextDTO(3L, "Les Brown", "The power of dreams", 700, 70)));
+        talkSearchIndex.rebuild();
+    }
+
+    @Test
+    void rebuild_ShouldIndexSearchAndCompletionsFromTheDatabase() {
+        assertArrayEquals(new long[]{1, 3}, talkSearchIndex.searchTitle("POWER", 0, 10));
+        assertArrayEquals(new long[]{2, 3}, talkSearchIndex.searchAuthor("brown", 1, 10));
+        assertEquals(List.of(new CompletionDTO("Brené Brown", 880), new CompletionDTO("Les Brown", 770)),
+                talkSearchIndex.completeAuthor("brown", 10));
+    }
+
+    @Test
+    void indexAndRemove_ShouldMoveTheInfluenceOfAChangedTalk() {
+        talkSearchIndex.index(new TalkTextDTO(3L, "Brené Brown", "The power of dreams", 800, 80));
+        talkSearchIndex.remove(2L);
+
+        assertEquals(List.of(new CompletionDTO("Brené Brown", 1430)), talkSearchIndex.completeAuthor("b", 10));
+        assertEquals(List.of(new CompletionDTO("The power of dreams", 880), new CompletionDTO("The power of vulnerability", 550)),
+                talkSearchIndex.completeTitle("the p", 10));
+        assertEquals(List.of(), talkSearchIndex.completeTitle("shame", 10));
+        assertArrayEquals(new long[]{1, 3}, talkSearchIndex.searchAuthor("brené", 0, 10));
+    }
+
+    @Test
+    void searchAuthorFuzzy_ShouldRankByDistanceThenInfluence() {
+        talkSearchIndex.index(new TalkTextDTO(4L, "Les Brawn", "Misspelled", 10, 1));
+
+        assertEquals(List.of(new FuzzyAuthorDTO("Les Brown", 1, 770), new FuzzyAuthorDTO("Les Brawn", 1, 11)),
+                talkSearchIndex.searchAuthorFuzzy("LES BRWN", 2, 10));
+        assertEquals(List.of(new FuzzyAuthorDTO("Les Brown", 1, 770)), talkSearchIndex.searchAuthorFuzzy("les brwn", 1, 1));
+        assertEquals(List.of(new FuzzyAuthorDTO("Brené Brown", 1, 880)), talkSearchIndex.searchAuthorFuzzy("brene brown", 2, 10));
+
+        talkSearchIndex.remove(4L);
+        talkSearchIndex.index(new TalkTextDTO(3L, "Leslie Brown", "The power of dreams", 700, 70));
+        assertEquals(List.of(), talkSearchIndex.searchAuthorFuzzy("les brwn", 1, 10));
+    }
+
+    @Test
+    void influencers_ShouldFollowUpdatesAndDeletes() {
+        assertEquals(List.of(new InfluencerDTO("Brené Brown", 800, 80, 880), new InfluencerDTO("Les Brown", 700, 70, 770)),
+                talkSearchIndex.influencers(0, 10, 1));
+        assertEquals(List.of(new InfluencerDTO("Les Brown", 700, 70, 770)), talkSearchIndex.influencers(1, 10, 1));
+        assertEquals(List.of(new InfluencerDTO("Brené Brown", 800, 80, 880)), talkSearchIndex.influencers(0, 10, 2));
+
+        talkSearchIndex.index(new TalkTextDTO(2L, "Brené Brown", "Listening to shame", 100, 10));
+        talkSearchIndex.index(new TalkTextDTO(4L, "Ken Robinson", "Do schools kill creativity?", 900, 90));
+        talkSearchIndex.remove(3L);
+
+        assertEquals(List.of(new InfluencerDTO("Ken Robinson", 900, 90, 990), new InfluencerDTO("Brené Brown", 600, 60, 660)),
+                talkSearchIndex.influencers(0, 10, 1));
+    }
+
+    @Test
+    void verifyInfluencers_ShouldReloadWhenTheTotalsDrifted() {
+        when(tedTalkRepository.findTopInfluentialSpeakers()).thenReturn(List.of(
+                new InfluencerDTO("Les Brown", 700, 70, 770), new InfluencerDTO("Brené Brown", 800, 80, 880)));
+        assertTrue(talkSearchIndex.verifyInfluencers());
+
+        talkSearchIndex.remove(3L);
+        assertFalse(talkSearchIndex.verifyInfluencers());
+        assertEquals(2, talkSearchIndex.influencers(0, 10, 1).size());
+    }
+}
@@ -0,0 +1,238 @@
+package com.io.tedtalk.service;
+
+import com.io.tedtalk.dto.TalkStatsDeltaDTO;
+import com.io.tedtalk.dto.TalkTextDTO;
+import com.io.tedtalk.repository.TedTalkRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TalkStatsCounterTest {
+
+    @Mock
+    private TedTalkRepository tedTalkRepository;
+
+    @Mock
+    private TalkSearchIndex talkSearchIndex;
+
+    @Mock
+    private TalkCache talkCache;
+
+    @InjectMocks
+    private TalkStatsCounter talkStatsCounter;
+
+    @Test
+    void flush_ShouldWriteEveryConcurrentIncrementOnce() throws Exception {
+        when(talkSearchIndex.get(anyLong())).thenReturn(talk(1L, 0, 0));
+        int threads = 8;
+        int increments = 50_000;
+        runConcurrently(threads, thread -> {
+            for (int i = 0; i < increments; i++) {
+                talkStatsCounter.increment(1 + i % 2, 1, i % 10 == 0 ? 1 : 0);
+                if (thread == 0 && i % 10_000 == 0) {
+                    talkStatsCounter.flush();
+                }
+            }
+        });
+        talkStatsCounter.flush();
+
+        long views = 0;
+        long likes = 0;
+        ArgumentCaptor<List<TalkStatsDeltaDTO>> deltas = ArgumentCaptor.captor();
+        verify(tedTalkRepository, atLeastOnce()).addStats(deltas.capture());
+        for (List<TalkStatsDeltaDTO> flushed : deltas.getAllValues()) {
+            for (TalkStatsDeltaDTO delta : flushed) {
+                views += delta.views();
+                likes += delta.likes();
+            }
+        }
+        assertEquals((long) threads * increments, views);
+        assertEquals((long) threads * increments / 10, likes);
+        verify(talkCache, atLeastOnce()).evictTalkEntries(anyList());
+        verify(talkCache, never()).evictRankings();
+    }
+
+    @Test
+    void flush_ShouldKeepTheIncrementsWhenTheUpdateFails() {
+        when(talkSearchIndex.get(7L)).thenReturn(talk(7L, 0, 0));
+        talkStatsCounter.increment(7L, 5, 2);
+        doThrow(new IllegalStateException("Connection lost")).doThrow(new IllegalStateException("Connection lost"))
+                .doNothing().when(tedTalkRepository).addStats(anyList());
+
+        assertThrows(IllegalStateException.class, () -> talkStatsCounter.flush());
+        talkStatsCounter.increment(7L, 1, 0);
+        talkStatsCounter.flush();
+
+        verify(tedTalkRepository, times(2)).addStats(List.of(new TalkStatsDeltaDTO(7L, 5, 2)));
+        verify(tedTalkRepository).addStats(List.of(new TalkStatsDeltaDTO(7L, 6, 2)));
+        verify(talkSearchIndex).addStats(7L, 6, 2);
+    }
+
+    @Test
+    void increment_ShouldRejectUnknownTalksAndNegativeCounts() {
+        when(talkSearchIndex.get(99L)).thenReturn(null);
+
+        assertThrows(ResponseStatusException.class, () -> talkStatsCounter.increment(99L, 1, 0));
+        assertThrows(ResponseStatusException.class, () -> talkStatsCounter.increment(1L, -1, 0));
+        talkStatsCounter.flush();
+        verifyNoInteractions(tedTalkRepository);
+    }
+
+    @Test
+    void increment_ShouldRejectCountsPastTheIntegerRangeAndKeepTheOthers() {
+        when(talkSearchIndex.get(1L)).thenReturn(talk(1L, Integer.MAX_VALUE - 10, 0));
+        when(talkSearchIndex.get(2L)).thenReturn(talk(2L, 100, 10));
+
+        talkStatsCounter.increment(1L, 6, 0);
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> talkStatsCounter.increment(1L, 5, 0));
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        assertThrows(ResponseStatusException.class, () -> talkStatsCounter.increment(2L, 3_000_000_000L, 0));
+        assertThrows(ResponseStatusException.class, () -> talkStatsCounter.increment(2L, 0, Long.MAX_VALUE));
+        talkStatsCounter.increment(2L, 1, 1);
+        talkStatsCounter.flush();
+
+        verify(tedTalkRepository).addStats(argThat(deltas -> deltas.containsAll(List.of(
+                new TalkStatsDeltaDTO(1L, 6, 0), new TalkStatsDeltaDTO(2L, 1, 1))) && deltas.size() == 2));
+    }
+
+    @Test
+    void increment_ShouldCountTheDeltaOfARunningFlushTowardsTheIntegerRange() {
+        when(talkSearchIndex.get(1L)).thenReturn(talk(1L, Integer.MAX_VALUE - 10, 0));
+        talkStatsCounter.increment(1L, 6, 0);
+        doAnswer(invocation -> {
+            // The index does not include the delta being written yet
+            assertThrows(ResponseStatusException.class, () -> talkStatsCounter.increment(1L, 5, 0));
+            return null;
+        }).when(tedTalkRepository).addStats(anyList());
+
+        talkStatsCounter.flush();
+
+        verify(tedTalkRepository).addStats(List.of(new TalkStatsDeltaDTO(1L, 6, 0)));
+        verify(talkSearchIndex).addStats(1L, 6, 0);
+    }
+
+    @Test
+    void increment_FromManyThreads_ShouldNeverReserveMoreThanTheIntegerRange() throws Exception {
+        when(talkSearchIndex.get(1L)).thenReturn(talk(1L, Integer.MAX_VALUE - 1000, 0));
+        LongAdder accepted = new LongAdder();
+        runConcurrently(8, thread -> {
+            for (int i = 0; i < 1000; i++) {
+                try {
+                    talkStatsCounter.increment(1L, 1, 0);
+                    accepted.increment();
+                } catch (ResponseStatusException e) {
+                    // past the range
+                }
+            }
+        });
+        talkStatsCounter.flush();
+
+        assertEquals(1000, accepted.sum());
+        verify(tedTalkRepository).addStats(List.of(new TalkStatsDeltaDTO(1L, 1000, 0)));
+    }
+
+    @Test
+    void flush_ShouldParkATalkTheDatabaseRejectsAndStillWriteTheOthers() {
+        when(talkSearchIndex.get(anyLong())).thenAnswer(invocation -> talk(invocation.getArgument(0), 0, 0));
+        TalkStatsDeltaDTO poisoned = new TalkStatsDeltaDTO(1L, 5, 0);
+        TalkStatsDeltaDTO valid = new TalkStatsDeltaDTO(2L, 1, 1);
+        doAnswer(invocation -> {
+            List<TalkStatsDeltaDTO> deltas = invocation.getArgument(0);
+            if (deltas.contains(poisoned)) {
+                throw new DataIntegrityViolationException("Numeric value out of range");
+            }
+            return null;
+        }).when(tedTalkRepository).addStats(anyList());
+        talkStatsCounter.increment(1L, 5, 0);
+        talkStatsCounter.increment(2L, 1, 1);
+
+        talkStatsCounter.flush();
+
+        verify(tedTalkRepository).addStats(List.of(valid));
+        verify(talkSearchIndex).addStats(2L, 1, 1);
+        verify(talkSearchIndex, never()).addStats(eq(1L), anyLong(), anyLong());
+
+        // The parked talk is retried on its own, with its increments kept, and no longer blocks the batch
+        talkStatsCounter.increment(2L, 2, 0);
+        talkStatsCounter.flush();
+        verify(tedTalkRepository).addStats(List.of(new TalkStatsDeltaDTO(2L, 2, 0)));
+        verify(tedTalkRepository, times(2)).addStats(List.of(poisoned));
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmark_IncrementThroughput() throws Exception {
+        TalkSearchIndex index = new TalkSearchIndex(tedTalkRepository);
+        for (long id = 0; id < 100; id++) {
+            index.index(new TalkTextDTO(id, "Author " + id, "Talk " + id, 0, 0));
+        }
+        TalkStatsCounter counter = new TalkStatsCounter(mock(TedTalkRepository.class, withSettings().stubOnly()), index,
+                mock(TalkCache.class, withSettings().stubOnly()));
+        int threads = Runtime.getRuntime().availableProcessors();
+        int increments = 2_000_000;
+
+        long start = System.nanoTime();
+        runConcurrently(threads, thread -> {
+            for (int i = 0; i < increments; i++) {
+                counter.increment(i % 100, 1, 0);
+            }
+        });
+        counter.flush();
+        long nanos = System.nanoTime() - start;
+
+        System.out.printf("%d threads: %.1f million increments per second%n", threads,
+                (double) threads * increments / nanos * 1_000);
+    }
+
+    private static TalkTextDTO talk(long id, int views, int likes) {
+        return new TalkTextDTO(id, "Author " + id, "Talk " + id, views, likes);
+    }
+
+    private static void runConcurrently(int threads, ThreadBody body) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    body.run(thread);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private interface ThreadBody {
+        void run(int thread);
+    }
+}
@@ -1,23 +1,44 @@
 package com.io.tedtalk.service;
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.io.tedtalk.dto.CompletionDTO;
+import com.io.tedtalk.dto.FuzzyAuthorDTO;
 import com.io.tedtalk.dto.InfluencerDTO;
 import com.io.tedtalk.dto.MostInfluentialSpeakerDTO;
+import com.io.tedtalk.dto.TedTalkPageDTO;
+import com.io.tedtalk.dto.BulkItemResultDTO;
+import com.io.tedtalk.dto.BulkItemStatus;
+import com.io.tedtalk.dto.TalkLinkDTO;
+import com.io.tedtalk.dto.TalkStatsUpdateDTO;
+import com.io.tedtalk.dto.TalkStatsUpdateResultDTO;
+import com.io.tedtalk.dto.TalkTextDTO;
+import com.io.tedtalk.dto.TedTalkBulkItemDTO;
+import com.io.tedtalk.dto.TedTalkStatsUpdateDTO;
 import com.io.tedtalk.model.TedTalk;
 import com.io.tedtalk.repository.TedTalkRepository;
+import com.io.tedtalk.util.PageCursor;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -29,6 +50,21 @@ class TedTalkApiServiceTest {
     @Mock
     private TedTalkRepository tedTalkRepository;
 
+    @Mock
+    private TalkSearchIndex talkSearchIndex;
+
+    @Mock
+    private TalkCache talkCache;
+
+    @Mock
+    private TalkStatsCounter talkStatsCounter;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private com.io.tedtalk.service.TedTalkApiService tedTalkService;
 
@@ -62,18 +98,59 @@ class TedTalkApiServiceTest {
 
     @Test
     void getAllTedTalks() {
-        when(tedTalkRepository.findAll()).thenReturn(Arrays.asList(tedTalk1, tedTalk2));
-        List<TedTalk> tedTalks = tedTalkService.getAllTedTalks();
-        assertEquals(2, tedTalks.size());
-        verify(tedTalkRepository, times(1)).findAll();
+        when(tedTalkRepository.findByIdGreaterThanOrderByIdAsc(0, Limit.of(51))).thenReturn(Arrays.asList(tedTalk1, tedTalk2));
+        TedTalkPageDTO page = tedTalkService.getAllTedTalks(null, 50);
+        assertEquals(2, page.items().size());
+        assertNull(page.nextCursor());
+        verify(tedTalkRepository, times(1)).findByIdGreaterThanOrderByIdAsc(0, Limit.of(51));
+    }
+
+    @Test
+    void getAllTedTalks_WithMorePages_ShouldReturnCursorToContinueAfterLastId() {
+        when(tedTalkRepository.findByIdGreaterThanOrderByIdAsc(0, Limit.of(2))).thenReturn(Arrays.asList(tedTalk1, tedTalk2));
+        when(tedTalkRepository.findByIdGreaterThanOrderByIdAsc(1, Limit.of(2))).thenReturn(List.of(tedTalk2));
+
+        TedTalkPageDTO first = tedTalkService.getAllTedTalks(null, 1);
+        TedTalkPageDTO second = tedTalkService.getAllTedTalks(first.nextCursor(), 1);
+
+        assertEquals(List.of(tedTalk1), first.items());
+        assertEquals(PageCursor.encode(1), first.nextCursor());
+        assertEquals(List.of(tedTalk2), second.items());
+        assertNull(second.nextCursor());
+    }
+
+    @Test
+    void getAllTedTalks_WithInvalidCursorOrSize_ShouldThrowBadRequest() {
+        assertThrows(ResponseStatusException.class, () -> tedTalkService.getAllTedTalks("not-a-cursor", 50));
+        assertThrows(ResponseStatusException.class, () -> tedTalkService.getAllTedTalks(null, 0));
+        assertThrows(ResponseStatusException.class, () -> tedTalkService.getAllTedTalks(null, TedTalkApiService.MAX_PAGE_SIZE + 1));
+        verifyNoInteractions(tedTalkRepository);
     }
 
     @Test
     void getAllTedTalks_WhenNoTalksExist_ShouldReturnEmptyList() {
-        when(tedTalkRepository.findAll()).thenReturn(List.of());
-        List<TedTalk> result = tedTalkService.getAllTedTalks();
-        assertTrue(result.isEmpty());
-        verify(tedTalkRepository, times(1)).findAll();
+        when(tedTalkRepository.findByIdGreaterThanOrderByIdAsc(0, Limit.of(51))).thenReturn(List.of());
+        TedTalkPageDTO result = tedTalkService.getAllTedTalks(null, 50);
+        assertTrue(result.items().isEmpty());
+        verify(tedTalkRepository, times(1)).findByIdGreaterThanOrderByIdAsc(0, Limit.of(51));
+    }
+
+    @Test
+    void exportTedTalks_ShouldWriteOneJsonObjectPerLineAndClearThePersistenceContext() throws IOException {
+        List<TedTalk> talks = IntStream.rangeClosed(1, 2500)
+                .mapToObj(i -> TedTalk.builder().id((long) i).title("Talk " + i).author("Author").year(2020).month(0)
+                        .views(i).likes(i).link("https://example.com/" + i).build())
+                .toList();
+        when(tedTalkRepository.streamAllByOrderByIdAsc()).thenReturn(talks.stream());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        tedTalkService.exportTedTalks(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2500, lines.length);
+        assertEquals("Talk 1", objectMapper.readTree(lines[0]).get("title").asText());
+        assertEquals("January 2020", objectMapper.readTree(lines[2499]).get("date").asText());
+        verify(entityManager, times(2)).clear();
     }
 
     @Test
@@ -101,12 +178,14 @@ class TedTalkApiServiceTest {
 
         assertNotNull(savedTedTalk);
         assertEquals(tedTalk1.getTitle(), savedTedTalk.getTitle());
+        verify(talkSearchIndex).index(tedTalk1);
+        verify(talkCache).evictRankings();
     }
 
     @Test
     void createTedTalk_shouldThrowException_whenRepositoryFails() {
         TedTalkRepository tedTalkRepository = mock(TedTalkRepository.class);
-        TedTalkApiService tedTalkService = new TedTalkApiService(tedTalkRepository);
+        TedTalkApiService tedTalkService = new TedTalkApiService(tedTalkRepository, talkSearchIndex, talkCache, talkStatsCounter, entityManager, objectMapper);
 
         TedTalk invalidTedTalk = new TedTalk();
         when(tedTalkRepository.save(any(TedTalk.class)))
@@ -118,6 +197,8 @@ class TedTalkApiServiceTest {
         );
 
         assertEquals("Duplicate link", exception.getMessage());
+        verifyNoInteractions(talkSearchIndex);
+        verifyNoInteractions(talkCache);
     }
 
     @Test
@@ -129,6 +210,8 @@ class TedTalkApiServiceTest {
 
         assertNotNull(updatedTedTalk);
         assertEquals(tedTalk1.getTitle(), updatedTedTalk.getTitle());
+        verify(talkSearchIndex).index(tedTalk1);
+        verify(talkCache).evictTalk(1L);
     }
 
     @Test
@@ -139,60 +222,214 @@ class TedTalkApiServiceTest {
         tedTalkService.deleteTedTalk(1L);
 
         verify(tedTalkRepository, times(1)).delete(tedTalk1);
+        verify(talkSearchIndex).remove(1L);
+        verify(talkCache).evictTalk(1L);
     }
 
     @Test
     void searchByAuthor() {
-        when(tedTalkRepository.findByAuthorContainingIgnoreCase("Minna")).thenReturn(Collections.singletonList(tedTalk1));
+        when(talkSearchIndex.searchAuthor("Minna", 0, 51)).thenReturn(new long[]{1L});
+        when(tedTalkRepository.findByIdInOrderByIdAsc(List.of(1L))).thenReturn(Collections.singletonList(tedTalk1));
 
-        List<TedTalk> result = tedTalkService.searchByAuthor("Minna");
+        TedTalkPageDTO result = tedTalkService.searchByAuthor("Minna", null, 50);
 
-        assertEquals(1, result.size());
-        assertEquals(tedTalk1.getAuthor(), result.getFirst().getAuthor());
+        assertEquals(1, result.items().size());
+        assertEquals(tedTalk1.getAuthor(), result.items().getFirst().getAuthor());
     }
     @Test
     void searchByAuthor_WithNoMatches_ShouldReturnEmptyList() {
         String searchTerm = "Nonexistent";
-        when(tedTalkRepository.findByAuthorContainingIgnoreCase(searchTerm)).thenReturn(List.of());
+        when(talkSearchIndex.searchAuthor(searchTerm, 0, 51)).thenReturn(new long[0]);
 
-        List<TedTalk> result = tedTalkService.searchByAuthor(searchTerm);
+        TedTalkPageDTO result = tedTalkService.searchByAuthor(searchTerm, null, 50);
 
-        assertTrue(result.isEmpty());
-        verify(tedTalkRepository, times(1)).findByAuthorContainingIgnoreCase(searchTerm);
+        assertTrue(result.items().isEmpty());
+        verify(talkSearchIndex, times(1)).searchAuthor(searchTerm, 0, 51);
+        verifyNoInteractions(tedTalkRepository);
     }
 
 
     @Test
     void searchByTitle_WithNoMatches_ShouldReturnEmptyList() {
         String searchTerm = "Nonexistent";
-        when(tedTalkRepository.findByTitleContainingIgnoreCase(searchTerm)).thenReturn(List.of());
+        when(talkSearchIndex.searchTitle(searchTerm, 0, 51)).thenReturn(new long[0]);
 
-        List<TedTalk> result = tedTalkService.searchByTitle(searchTerm);
+        TedTalkPageDTO result = tedTalkService.searchByTitle(searchTerm, null, 50);
 
-        assertTrue(result.isEmpty());
-        verify(tedTalkRepository, times(1)).findByTitleContainingIgnoreCase(searchTerm);
+        assertTrue(result.items().isEmpty());
+        verify(talkSearchIndex, times(1)).searchTitle(searchTerm, 0, 51);
+        verifyNoInteractions(tedTalkRepository);
+    }
+    @Test
+    void autocompleteAuthor_ShouldReturnCompletionsFromTheIndex() {
+        List<CompletionDTO> completions = List.of(new CompletionDTO("Minna Shemeer", 75000));
+        when(talkSearchIndex.completeAuthor("min", 5)).thenReturn(completions);
+
+        assertEquals(completions, tedTalkService.autocompleteAuthor("min", 5));
+        assertThrows(ResponseStatusException.class, () -> tedTalkService.autocompleteTitle("min", 11));
+        verifyNoInteractions(tedTalkRepository);
+    }
+
+    @Test
+    void searchByAuthorFuzzy_ShouldValidateDistanceAndAskTheIndex() {
+        List<FuzzyAuthorDTO> matches = List.of(new FuzzyAuthorDTO("Minna Shemeer", 1, 75000));
+        when(talkSearchIndex.searchAuthorFuzzy("mina shemeer", 2, 10)).thenReturn(matches);
+
+        assertEquals(matches, tedTalkService.searchByAuthorFuzzy("mina shemeer", 2, 10));
+        assertThrows(ResponseStatusException.class, () -> tedTalkService.searchByAuthorFuzzy("mina", 4, 10));
+        assertThrows(ResponseStatusException.class, () -> tedTalkService.searchByAuthorFuzzy("mina", -1, 10));
+        verifyNoInteractions(tedTalkRepository);
+    }
+
+    @Test
+    void updateViewsAndLikes_ShouldReindexTheTalk() {
+        when(tedTalkRepository.findById(1L)).thenReturn(Optional.of(tedTalk1));
+        when(tedTalkRepository.save(tedTalk1)).thenReturn(tedTalk1);
+
+        tedTalkService.updateViewsAndLikes(1L, new TedTalkStatsUpdateDTO(60000, null));
+
+        assertEquals(60000, tedTalk1.getViews());
+        verify(talkSearchIndex).index(tedTalk1);
+        verify(talkCache).evictTalk(1L);
+    }
+
+    @Test
+    void createTedTalks_ShouldInsertNewLinksAndReportTheOthers() {
+        TedTalkBulkItemDTO invalid = new TedTalkBulkItemDTO("No link", "Author", "February 2020", 1, 1, null);
+        TedTalkBulkItemDTO taken = new TedTalkBulkItemDTO("Taken", "Author", "February 2020", 1, 1, tedTalk2.getLink());
+        when(tedTalkRepository.findExistingLinks(anyCollection()))
+                .thenReturn(List.of(new TalkLinkDTO(2L, tedTalk2.getLink())))
+                .thenReturn(List.of(new TalkLinkDTO(7L, tedTalk1.getLink())));
+
+        List<BulkItemResultDTO> results = tedTalkService.createTedTalks(Arrays.asList(item(tedTalk1), invalid, taken, item(tedTalk1)));
+
+        assertEquals(List.of(new BulkItemResultDTO(7L, tedTalk1.getLink(), BulkItemStatus.CREATED),
+                new BulkItemResultDTO(null, null, BulkItemStatus.INVALID),
+                new BulkItemResultDTO(null, tedTalk2.getLink(), BulkItemStatus.DUPLICATE_LINK),
+                new BulkItemResultDTO(null, tedTalk1.getLink(), BulkItemStatus.DUPLICATE_LINK)), results);
+        verify(tedTalkRepository).insertAll(List.of(withoutId(tedTalk1)));
+        verify(talkSearchIndex).indexAll(List.of(new TalkTextDTO(7L, tedTalk1.getAuthor(), tedTalk1.getTitle(),
+                tedTalk1.getViews(), tedTalk1.getLikes())));
+        verify(talkCache).evictTalks(List.of());
+    }
+
+    @Test
+    void upsertTedTalks_ShouldReportCreatedAndUpdatedTalksAndEvictTheUpdatedOnes() {
+        when(tedTalkRepository.findExistingLinks(anyCollection()))
+                .thenReturn(List.of(new TalkLinkDTO(2L, tedTalk2.getLink())))
+                .thenReturn(List.of(new TalkLinkDTO(7L, tedTalk1.getLink()), new TalkLinkDTO(2L, tedTalk2.getLink())));
+
+        List<BulkItemResultDTO> results = tedTalkService.upsertTedTalks(List.of(item(tedTalk1), item(tedTalk2)));
+
+        assertEquals(List.of(new BulkItemResultDTO(7L, tedTalk1.getLink(), BulkItemStatus.CREATED),
+                new BulkItemResultDTO(2L, tedTalk2.getLink(), BulkItemStatus.UPDATED)), results);
+        verify(tedTalkRepository).upsertAll(List.of(withoutId(tedTalk1), withoutId(tedTalk2)));
+        verify(talkSearchIndex).indexAll(anyList());
+        verify(talkCache).evictTalks(List.of(2L));
     }
+
+    @Test
+    void createTedTalks_ShouldReportItemsFailingTheCsvChecksAsInvalidAndInsertTheOthers() {
+        when(tedTalkRepository.findExistingLinks(anyCollection()))
+                .thenReturn(List.of())
+                .thenReturn(List.of(new TalkLinkDTO(7L, tedTalk1.getLink())));
+
+        List<BulkItemResultDTO> results = tedTalkService.createTedTalks(List.of(
+                new TedTalkBulkItemDTO("Bad date", "Author", "Someday 2020", 1, 1, "https://example.com/a"),
+                new TedTalkBulkItemDTO("Too old", "Author", "June 1850", 1, 1, "https://example.com/b"),
+                new TedTalkBulkItemDTO("Not a URL", "Author", "June 2010", 1, 1, "ftp://example.com/c"),
+                new TedTalkBulkItemDTO("Negative", "Author", "June 2010", -1, 1, "https://example.com/d"),
+                item(tedTalk1)));
+
+        assertEquals(List.of(BulkItemStatus.INVALID, BulkItemStatus.INVALID, BulkItemStatus.INVALID,
+                BulkItemStatus.INVALID, BulkItemStatus.CREATED), results.stream().map(BulkItemResultDTO::status).toList());
+        verify(tedTalkRepository).insertAll(List.of(withoutId(tedTalk1)));
+    }
+
+    @Test
+    void deleteTedTalks_ShouldDeleteTheExistingTalksWithOneStatement() {
+        when(tedTalkRepository.findExistingIds(anyCollection())).thenReturn(List.of(1L));
+
+        List<BulkItemResultDTO> results = tedTalkService.deleteTedTalks(List.of(1L, 99L));
+
+        assertEquals(List.of(new BulkItemResultDTO(1L, null, BulkItemStatus.DELETED),
+                new BulkItemResultDTO(99L, null, BulkItemStatus.NOT_FOUND)), results);
+        verify(tedTalkRepository).deleteAllByIdInBatch(Set.of(1L));
+        verify(talkSearchIndex).remove(1L);
+        verify(talkCache).evictTalks(Set.of(1L));
+    }
+
+    @Test
+    void bulkOperations_WithTooManyItems_ShouldThrowBadRequest() {
+        assertThrows(ResponseStatusException.class, () -> tedTalkService.deleteTedTalks(List.of()));
+        assertThrows(ResponseStatusException.class, () -> tedTalkService.createTedTalks(
+                Collections.nCopies(TedTalkApiService.MAX_BULK_SIZE + 1, item(tedTalk1))));
+        verifyNoInteractions(tedTalkRepository);
+    }
+
+    @Test
+    void updateViewsAndLikes_InBulk_ShouldReindexAndEvictOnlyTheUpdatedTalks() {
+        List<TalkStatsUpdateDTO> updates = List.of(new TalkStatsUpdateDTO(1L, 60000, null),
+                new TalkStatsUpdateDTO(99L, 5, 1));
+        when(tedTalkRepository.updateStats(updates)).thenReturn(new int[]{1, 0});
+
+        List<TalkStatsUpdateResultDTO> results = tedTalkService.updateViewsAndLikes(updates);
+
+        assertEquals(List.of(new TalkStatsUpdateResultDTO(1L, true), new TalkStatsUpdateResultDTO(99L, false)), results);
+        verify(talkSearchIndex).setStats(1L, 60000, null);
+        verify(talkSearchIndex, never()).setStats(eq(99L), any(), any());
+        verify(talkCache).evictTalks(List.of(1L));
+    }
+
+    @Test
+    void updateViewsAndLikes_InBulk_WithInvalidEntries_ShouldThrowBadRequest() {
+        assertThrows(ResponseStatusException.class, () -> tedTalkService.updateViewsAndLikes(List.of()));
+        assertThrows(ResponseStatusException.class,
+                () -> tedTalkService.updateViewsAndLikes(List.of(new TalkStatsUpdateDTO(null, 1, 1))));
+        assertThrows(ResponseStatusException.class,
+                () -> tedTalkService.updateViewsAndLikes(List.of(new TalkStatsUpdateDTO(1L, -1, null))));
+        verify(tedTalkRepository, never()).updateStats(any());
+    }
+
     @Test
     void getTopInfluentialSpeakers_ShouldReturnSpeakers() {
         List<InfluencerDTO> expected = List.of(
                 new InfluencerDTO("Hana Shemeer", 50000000L, 2500000L,75000000L )
         );
-        when(tedTalkRepository.findTopInfluentialSpeakers()).thenReturn(expected);
+        when(talkSearchIndex.influencers(0, 10, 1)).thenReturn(expected);
 
-        List<InfluencerDTO> result = tedTalkService.getTopInfluentialSpeakers();
+        List<InfluencerDTO> result = tedTalkService.getTopInfluentialSpeakers(10, 0, 1);
 
         assertEquals(1, result.size());
-        verify(tedTalkRepository, times(1)).findTopInfluentialSpeakers();
+        verifyNoInteractions(tedTalkRepository);
     }
 
     @Test
     void getTopInfluentialSpeakers_WhenNoData_ShouldReturnEmptyList() {
-        when(tedTalkRepository.findTopInfluentialSpeakers()).thenReturn(List.of());
+        when(talkSearchIndex.influencers(20, 5, 2)).thenReturn(List.of());
 
-        List<InfluencerDTO> result = tedTalkService.getTopInfluentialSpeakers();
+        List<InfluencerDTO> result = tedTalkService.getTopInfluentialSpeakers(5, 20, 2);
 
         assertTrue(result.isEmpty());
-        verify(tedTalkRepository, times(1)).findTopInfluentialSpeakers();
+        verify(talkSearchIndex, times(1)).influencers(20, 5, 2);
+    }
+
+    @Test
+    void getTopInfluentialSpeakers_WithoutLimit_ShouldReturnTheWholeRanking() {
+        when(talkSearchIndex.influencers(0, Integer.MAX_VALUE, 1)).thenReturn(List.of());
+
+        tedTalkService.getTopInfluentialSpeakers(null, 0, 1);
+
+        verify(talkSearchIndex).influencers(0, Integer.MAX_VALUE, 1);
+    }
+
+    @Test
+    void getTopInfluentialSpeakers_WithInvalidParameters_ShouldThrowBadRequest() {
+        assertThrows(ResponseStatusException.class, () -> tedTalkService.getTopInfluentialSpeakers(0, 0, 1));
+        assertThrows(ResponseStatusException.class, () -> tedTalkService.getTopInfluentialSpeakers(501, 0, 1));
+        assertThrows(ResponseStatusException.class, () -> tedTalkService.getTopInfluentialSpeakers(10, -1, 1));
+        assertThrows(ResponseStatusException.class, () -> tedTalkService.getTopInfluentialSpeakers(10, 0, 0));
+        verifyNoInteractions(talkSearchIndex);
     }
 
     @Test
@@ -200,12 +437,24 @@ class TedTalkApiServiceTest {
         List<MostInfluentialSpeakerDTO> expected = List.of(
                 new MostInfluentialSpeakerDTO(2016, "Minna Shemeer", 40000000, 50000000,90000000L)
         );
-        when(tedTalkRepository.findMostInfluentialTalksPerYear()).thenReturn(expected);
+        when(tedTalkRepository.findMostInfluentialTalksPerYear(1)).thenReturn(expected);
 
-        List<MostInfluentialSpeakerDTO> result = tedTalkService.getMostInfluentialTalksPerYear();
+        List<MostInfluentialSpeakerDTO> result = tedTalkService.getMostInfluentialTalksPerYear(1);
 
         assertEquals(1, result.size());
         assertEquals(2016, result.getFirst().year());
-        verify(tedTalkRepository, times(1)).findMostInfluentialTalksPerYear();
+        verify(tedTalkRepository, times(1)).findMostInfluentialTalksPerYear(1);
+        assertThrows(ResponseStatusException.class, () -> tedTalkService.getMostInfluentialTalksPerYear(0));
+        assertThrows(ResponseStatusException.class, () -> tedTalkService.getMostInfluentialTalksPerYear(101));
+    }
+
+    private static TedTalkBulkItemDTO item(TedTalk talk) {
+        return new TedTalkBulkItemDTO(talk.getTitle(), talk.getAuthor(), talk.getDate(), talk.getViews(), talk.getLikes(),
+                talk.getLink());
+    }
+
+    private static TedTalk withoutId(TedTalk talk) {
+        return new TedTalk(talk.getTitle(), talk.getAuthor(), talk.getDate(), talk.getViews(), talk.getLikes(),
+                talk.getLink());
     }
 }
@@ -0,0 +1,86 @@
+package com.io.tedtalk.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BkTreeTest {
+
+    private static final Comparator<BkTree.Match> BY_TERM = Comparator.comparing(BkTree.Match::term);
+
+    @Test
+    void distance_ShouldCountInsertionsDeletionsAndSubstitutions() {
+        assertEquals(0, BkTree.distance("brown", "brown"));
+        assertEquals(1, BkTree.distance("brown", "brwn"));
+        assertEquals(1, BkTree.distance("brown", "browne"));
+        assertEquals(2, BkTree.distance("brown", "borwn"));
+        assertEquals(3, BkTree.distance("kitten", "sitting"));
+        assertEquals(5, BkTree.distance("", "brown"));
+    }
+
+    @Test
+    void search_ShouldFindTermsWithinDistanceAndSkipRemovedOnes() {
+        BkTree tree = new BkTree();
+        for (String term : List.of("brené brown", "les brown", "ken robinson", "simon sinek")) {
+            tree.add(term);
+        }
+        tree.add("les brown");
+
+        assertEquals(List.of(new BkTree.Match("brené brown", 1)), tree.search("brene brown", 2));
+        assertEquals(List.of(new BkTree.Match("ken robinson", 0)), tree.search("ken robinson", 0));
+
+        tree.remove("brené brown");
+        assertEquals(List.of(), tree.search("brene brown", 2));
+        tree.add("brené brown");
+        assertEquals(1, tree.search("brene brown", 2).size());
+    }
+
+    @Test
+    void search_ShouldMatchABruteForceScan() {
+        Random random = new Random(42);
+        BkTree tree = new BkTree();
+        Set<String> terms = new HashSet<>();
+        for (int i = 0; i < 3000; i++) {
+            String term = randomText(random, 3 + random.nextInt(6));
+            if (!terms.isEmpty() && random.nextInt(5) == 0) {
+                String removed = terms.iterator().next();
+                tree.remove(removed);
+                terms.remove(removed);
+            } else {
+                tree.add(term);
+                terms.add(term);
+            }
+        }
+
+        for (int i = 0; i < 200; i++) {
+            String query = randomText(random, 3 + random.nextInt(6));
+            int maxDistance = random.nextInt(4);
+            List<BkTree.Match> expected = new ArrayList<>();
+            for (String term : terms) {
+                int distance = BkTree.distance(query, term);
+                if (distance <= maxDistance) {
+                    expected.add(new BkTree.Match(term, distance));
+                }
+            }
+            expected.sort(BY_TERM);
+            List<BkTree.Match> actual = new ArrayList<>(tree.search(query, maxDistance));
+            actual.sort(BY_TERM);
+            assertEquals(expected, actual, query);
+        }
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append("abcde".charAt(random.nextInt(5)));
+        }
+        return text.toString();
+    }
+}
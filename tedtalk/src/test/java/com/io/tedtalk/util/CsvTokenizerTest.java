@@ -0,0 +1,152 @@
+package com.io.tedtalk.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvTokenizerTest {
+
+    @Test
+    void next_ShouldSplitQuotedFieldsContainingCommasQuotesAndLineBreaks() throws IOException {
+        String csv = "title,author\n"
+                + "\"Yes, and\",\"Say \"\"hi\"\"\"\n"
+                + "\"Line one\nline two\",  Someone  \r\n"
+                + "last,row";
+        CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(csv));
+
+        assertTrue(tokenizer.next());
+        assertEquals(1, tokenizer.lineNumber());
+
+        assertTrue(tokenizer.next());
+        assertEquals(2, tokenizer.lineNumber());
+        assertEquals(2, tokenizer.fieldCount());
+        assertEquals("Yes, and", tokenizer.field(0));
+        assertEquals("Say \"hi\"", tokenizer.field(1));
+
+        assertTrue(tokenizer.next());
+        assertEquals(3, tokenizer.lineNumber());
+        assertEquals("Line one\nline two", tokenizer.field(0));
+        assertEquals("Someone", tokenizer.field(1));
+
+        assertTrue(tokenizer.next());
+        assertEquals(5, tokenizer.lineNumber());
+        assertEquals("row", tokenizer.field(1));
+
+        assertFalse(tokenizer.next());
+    }
+
+    @Test
+    void next_ShouldReportBlankLinesAndKeepEmptyFields() throws IOException {
+        CsvTokenizer tokenizer = new CsvTokenizer(new StringReader("a,,b\n   \n\"\"\n"));
+
+        assertTrue(tokenizer.next());
+        assertEquals(3, tokenizer.fieldCount());
+        assertEquals("", tokenizer.field(1));
+        assertFalse(tokenizer.isBlankRecord());
+
+        assertTrue(tokenizer.next());
+        assertTrue(tokenizer.isBlankRecord());
+
+        assertTrue(tokenizer.next());
+        assertFalse(tokenizer.isBlankRecord());
+        assertEquals("", tokenizer.field(0));
+
+        assertFalse(tokenizer.next());
+    }
+
+    @Test
+    void next_ShouldTreatQuotesInsideUnquotedFieldsLiterally() throws IOException {
+        CsvTokenizer tokenizer = new CsvTokenizer(new StringReader("5\" floppy,x"));
+
+        assertTrue(tokenizer.next());
+        assertEquals(2, tokenizer.fieldCount());
+        assertEquals("5\" floppy", tokenizer.field(0));
+    }
+
+    @Test
+    void next_ShouldFlagARecordEndingInsideQuotes() throws IOException {
+        CsvTokenizer tokenizer = new CsvTokenizer(new StringReader("\"closed\",x\n\"open,y\n"));
+
+        assertTrue(tokenizer.next());
+        assertFalse(tokenizer.isUnterminated());
+
+        assertTrue(tokenizer.next());
+        assertTrue(tokenizer.isUnterminated());
+        assertEquals("open,y", tokenizer.field(0));
+        assertFalse(tokenizer.next());
+        assertEquals(3, tokenizer.lineNumber());
+    }
+
+    /**
+     * Compares the tokenizer with the previous readLine/split/trim path. Run with {@code -Dbenchmark=true}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmark_AgainstReadLineAndSplit() throws IOException {
+        StringBuilder csv = new StringBuilder("title,author,date,views,likes,link\n");
+        for (int i = 0; i < 500_000; i++) {
+            csv.append("Talk number ").append(i).append(",Speaker ").append(i % 5000)
+                    .append(",June 2010,").append(i * 7).append(',').append(i).append(",https://example.com/talks/").append(i).append('\n');
+        }
+        String input = csv.toString();
+
+        for (int round = 0; round < 5; round++) {
+            long[] split = measure(() -> splitPath(input));
+            long[] tokenizer = measure(() -> tokenizerPath(input));
+            System.out.printf("round %d: split %d ms, %d MB allocated | tokenizer %d ms, %d MB allocated%n",
+                    round, split[0], split[1] >> 20, tokenizer[0], tokenizer[1] >> 20);
+        }
+    }
+
+    private static int splitPath(String input) throws IOException {
+        int fields = 0;
+        try (BufferedReader reader = new BufferedReader(new StringReader(input))) {
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] cols = line.split(",", -1);
+                for (String col : cols) {
+                    fields += col.trim().length() > 0 ? 1 : 0;
+                }
+            }
+        }
+        return fields;
+    }
+
+    private static int tokenizerPath(String input) throws IOException {
+        int fields = 0;
+        try (CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(input))) {
+            tokenizer.next();
+            while (tokenizer.next()) {
+                if (tokenizer.fieldCount() == 6) {
+                    for (int i = 0; i < 6; i++) {
+                        fields += tokenizer.field(i).length() > 0 ? 1 : 0;
+                    }
+                }
+            }
+        }
+        return fields;
+    }
+
+    private interface CsvPass {
+        int run() throws IOException;
+    }
+
+    private static volatile int sink;
+
+    private static long[] measure(CsvPass pass) throws IOException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().threadId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        sink += pass.run();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        return new long[]{millis, threads.getThreadAllocatedBytes(thread) - allocatedBefore};
+    }
+}
@@ -0,0 +1,66 @@
+package com.io.tedtalk.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InfluenceRankingTest {
+
+    @Test
+    void ranked_ShouldSumTalksPerAuthorMostInfluentialFirst() {
+        InfluenceRanking ranking = new InfluenceRanking();
+        ranking.add("Brené Brown", 500, 50);
+        ranking.add("Les Brown", 700, 70);
+        ranking.add("Brené Brown", 300, 30);
+
+        assertEquals(List.of(new InfluenceRanking.Influencer("Brené Brown", 800, 80, 2),
+                new InfluenceRanking.Influencer("Les Brown", 700, 70, 1)), ranking.ranked());
+
+        ranking.remove("Brené Brown", 500, 50);
+        ranking.remove("Unknown", 1, 1);
+        assertEquals(List.of(new InfluenceRanking.Influencer("Les Brown", 700, 70, 1),
+                new InfluenceRanking.Influencer("Brené Brown", 300, 30, 1)), ranking.ranked());
+
+        ranking.remove("Les Brown", 700, 70);
+        assertEquals(1, ranking.size());
+    }
+
+    @Test
+    void ranked_ShouldMatchAGroupByAfterRandomChanges() {
+        Random random = new Random(42);
+        InfluenceRanking ranking = new InfluenceRanking();
+        List<long[]> talks = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            if (!talks.isEmpty() && random.nextInt(3) == 0) {
+                long[] talk = talks.remove(random.nextInt(talks.size()));
+                ranking.remove("author " + talk[0], talk[1], talk[2]);
+            } else {
+                long[] talk = {random.nextInt(200), random.nextInt(1000), random.nextInt(100)};
+                talks.add(talk);
+                ranking.add("author " + talk[0], talk[1], talk[2]);
+            }
+        }
+
+        Map<String, InfluenceRanking.Influencer> grouped = new HashMap<>();
+        for (long[] talk : talks) {
+            grouped.merge("author " + talk[0], new InfluenceRanking.Influencer("author " + talk[0], talk[1], talk[2], 1),
+                    (a, b) -> new InfluenceRanking.Influencer(a.author(), a.views() + b.views(), a.likes() + b.likes(),
+                            a.talks() + b.talks()));
+        }
+        List<InfluenceRanking.Influencer> expected = grouped.values().stream()
+                .sorted(Comparator.comparingLong(InfluenceRanking.Influencer::influence).reversed()
+                        .thenComparing(InfluenceRanking.Influencer::author))
+                .toList();
+        assertEquals(expected, ranking.ranked());
+        assertEquals(expected.subList(10, 30), ranking.top(10, 20, 1));
+        assertEquals(expected.stream().filter(influencer -> influencer.talks() >= 10).skip(5).limit(3).toList(),
+                ranking.top(5, 3, 10));
+    }
+}
@@ -0,0 +1,131 @@
+package com.io.tedtalk.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrefixTrieTest {
+
+    @Test
+    void complete_ShouldRankTermsStartingAnyWordByScore() {
+        PrefixTrie trie = new PrefixTrie();
+        trie.add("Brené Brown", 500);
+        trie.add("Les Brown", 700);
+        trie.add("Ken Robinson", 900);
+        trie.add("Bryan Stevenson", 100);
+
+        assertEquals(List.of(new PrefixTrie.Completion("Les Brown", 700), new PrefixTrie.Completion("Brené Brown", 500),
+                new PrefixTrie.Completion("Bryan Stevenson", 100)), trie.complete("br", 10));
+        assertEquals(List.of(new PrefixTrie.Completion("Les Brown", 700)), trie.complete("BROWN", 1));
+        assertEquals(List.of(new PrefixTrie.Completion("Ken Robinson", 900)), trie.complete("ken rob", 10));
+        assertEquals(List.of(), trie.complete("brx", 10));
+        assertEquals(4, trie.complete("", 10).size());
+    }
+
+    @Test
+    void addRemoveAndRescore_ShouldKeepRankingUpToDate() {
+        PrefixTrie trie = new PrefixTrie();
+        trie.add("Simon Sinek", 100);
+        trie.add("simon sinek", 50);
+        trie.add("Simone Giertz", 120);
+
+        assertEquals(List.of(new PrefixTrie.Completion("Simon Sinek", 150), new PrefixTrie.Completion("Simone Giertz", 120)),
+                trie.complete("sim", 10));
+
+        trie.remove("Simon Sinek", 100);
+        trie.rescore("Simone Giertz", -100);
+        assertEquals(List.of(new PrefixTrie.Completion("Simon Sinek", 50), new PrefixTrie.Completion("Simone Giertz", 20)),
+                trie.complete("sim", 10));
+
+        trie.remove("Simon Sinek", 50);
+        assertEquals(List.of(), trie.complete("sinek", 10));
+        assertEquals(List.of(new PrefixTrie.Completion("Simone Giertz", 20)), trie.complete("simon", 10));
+    }
+
+    @Test
+    void complete_ShouldMatchABruteForceRanking() {
+        Random random = new Random(42);
+        String alphabet = "abc ";
+        PrefixTrie trie = new PrefixTrie();
+        Map<String, Long> scores = new HashMap<>();
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 5000; i++) {
+            String text = randomText(random, alphabet, 1 + random.nextInt(8)).trim();
+            if (text.isEmpty()) {
+                continue;
+            }
+            long score = random.nextInt(1000);
+            if (counts.getOrDefault(text, 0) > 0 && random.nextInt(3) == 0) {
+                trie.remove(text, scores.get(text) / counts.get(text));
+                scores.merge(text, -(scores.get(text) / counts.get(text)), Long::sum);
+                counts.merge(text, -1, Integer::sum);
+            } else {
+                trie.add(text, score);
+                scores.merge(text, score, Long::sum);
+                counts.merge(text, 1, Integer::sum);
+            }
+        }
+
+        for (int i = 0; i < 300; i++) {
+            String prefix = randomText(random, alphabet, random.nextInt(4)).trim();
+            List<PrefixTrie.Completion> expected = scores.entrySet().stream()
+                    .filter(e -> counts.get(e.getKey()) > 0)
+                    .filter(e -> hasWordStartingWith(e.getKey(), prefix))
+                    .map(e -> new PrefixTrie.Completion(e.getKey(), e.getValue()))
+                    .sorted(Comparator.comparingLong(PrefixTrie.Completion::score).reversed()
+                            .thenComparing(PrefixTrie.Completion::text))
+                    .limit(PrefixTrie.MAX_COMPLETIONS)
+                    .toList();
+            assertEquals(expected, trie.complete(prefix, PrefixTrie.MAX_COMPLETIONS), prefix);
+        }
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmark_CompletionLatency() {
+        Random random = new Random(7);
+        PrefixTrie trie = new PrefixTrie();
+        for (int i = 0; i < 200_000; i++) {
+            trie.add(randomText(random, "abcdefghijklmnopqrstuvwxyz", 4 + random.nextInt(6)) + " "
+                    + randomText(random, "abcdefghijklmnopqrstuvwxyz", 4 + random.nextInt(8)), random.nextInt(1_000_000));
+        }
+
+        int iterations = 1_000_000;
+        String[] prefixes = {"a", "br", "kel", "mart", "zzzz"};
+        long found = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            found += trie.complete(prefixes[i % prefixes.length], 10).size();
+        }
+        long nanos = (System.nanoTime() - start) / iterations;
+
+        assertTrue(found > 0);
+        System.out.printf("200k terms: %d ns per completion%n", nanos);
+    }
+
+    private static boolean hasWordStartingWith(String text, String prefix) {
+        String lower = text.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < lower.length(); i++) {
+            if (lower.charAt(i) != ' ' && (i == 0 || lower.charAt(i - 1) == ' ') && lower.startsWith(prefix, i)) {
+                return true;
+            }
+        }
+        return prefix.isEmpty();
+    }
+
+    private static String randomText(Random random, String alphabet, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,134 @@
+package com.io.tedtalk.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.net.URI;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TalkDecoderTest {
+
+    private static final DateTimeFormatter MONTH_YEAR = DateTimeFormatter.ofPattern("MMMM yyyy", Locale.ENGLISH);
+
+    @Test
+    void decodeInt_ShouldMatchIntegerParseInt() {
+        for (String value : List.of("0", "42", "+7", "-13", "2147483647", "-2147483648", "2147483648",
+                "-2147483649", "99999999999", "", "-", "+", "1.5", "1e3", " 1", "many", "0x10", "00012")) {
+            Long expected;
+            try {
+                expected = (long) Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                expected = TalkDecoder.NOT_AN_INT;
+            }
+            assertEquals(expected, TalkDecoder.decodeInt(value), value);
+        }
+    }
+
+    @Test
+    void decodeMonthYear_ShouldMatchYearMonthParse() {
+        for (String value : List.of("December 2021", "May 1999", "September 2010", "June 2010", "june 2010",
+                "JUNE 2010", "Jun 2010", "June  2010", "June 10", "June 20100", "June", "2010", "", "Juney 2010",
+                "June 20x0", "Invalid")) {
+            int expected;
+            try {
+                YearMonth yearMonth = YearMonth.parse(value, MONTH_YEAR);
+                expected = yearMonth.getYear() * 12 + yearMonth.getMonthValue() - 1;
+            } catch (DateTimeParseException e) {
+                expected = TalkDecoder.NOT_A_DATE;
+            }
+            assertEquals(expected, TalkDecoder.decodeMonthYear(value), value);
+        }
+    }
+
+    @Test
+    void decodeMonthYear_ShouldSplitIntoZeroBasedMonthAndYear() {
+        int monthYear = TalkDecoder.decodeMonthYear("December 2021");
+
+        assertEquals(11, TalkDecoder.month(monthYear));
+        assertEquals(2021, TalkDecoder.year(monthYear));
+        assertEquals("December", TalkDecoder.monthName(11));
+    }
+
+    @Test
+    void isHttpUrl_ShouldMatchUriValidation() {
+        for (String value : List.of("https://example.com/brown", "http://example.com", "HTTPS://Example.COM/a?b=c#d",
+                "https://www.ted.com/talks/brene_brown_the_power_of_vulnerability",
+                "https://user@example.com:8080/path", "https://example.com/a%20b", "https://example.com/a%2",
+                "https://example.com/a b", "https://exa mple.com", "https://exa_mple.com/", "https://-example.com",
+                "https://", "https:///path", "ftp://example.com", "invalid-url", "example.com", "", "https://example.com/<x>",
+                "https://example.com:80a/", "https://a..b/")) {
+            assertEquals(isValidUrlWithUri(value), TalkDecoder.isHttpUrl(value), value);
+        }
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmark_RejectedRows() {
+        String[][] rows = {{"many", "10", "June 2010", "https://example.com/a"},
+                {"100", "10", "Juin 2010", "https://example.com/a"},
+                {"100", "10", "June 2010", "not a url"}};
+        int iterations = 500_000;
+
+        long rejected = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            String[] row = rows[i % rows.length];
+            if (!(isIntegerWithException(row[0]) && isIntegerWithException(row[1])
+                    && isValidDateWithException(row[2]) && isValidUrlWithUri(row[3]))) {
+                rejected++;
+            }
+        }
+        long exceptionsNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            String[] row = rows[i % rows.length];
+            if (TalkDecoder.decodeInt(row[0]) == TalkDecoder.NOT_AN_INT
+                    || TalkDecoder.decodeInt(row[1]) == TalkDecoder.NOT_AN_INT
+                    || TalkDecoder.decodeMonthYear(row[2]) == TalkDecoder.NOT_A_DATE
+                    || !TalkDecoder.isHttpUrl(row[3])) {
+                rejected--;
+            }
+        }
+        long decoderNanos = System.nanoTime() - start;
+
+        assertEquals(0, rejected);
+        System.out.printf("exceptions: %d ms, decoder: %d ms, speed-up: %.1fx%n",
+                exceptionsNanos / 1_000_000, decoderNanos / 1_000_000, (double) exceptionsNanos / decoderNanos);
+    }
+
+    private static boolean isIntegerWithException(String value) {
+        try {
+            Integer.parseInt(value);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static boolean isValidDateWithException(String value) {
+        try {
+            YearMonth.parse(value, DateTimeFormatter.ofPattern("MMMM yyyy", Locale.ENGLISH));
+            return true;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    private static boolean isValidUrlWithUri(String url) {
+        try {
+            URI uri = URI.create(url);
+            return uri.getScheme() != null &&
+                    (uri.getScheme().equalsIgnoreCase("http") || uri.getScheme().equalsIgnoreCase("https")) &&
+                    uri.getHost() != null;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.io.tedtalk.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrigramIndexTest {
+
+    @Test
+    void search_ShouldFindSubstringsIgnoringCaseInIdOrder() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(3, "Brené Brown");
+        index.put(1, "Ken Robinson");
+        index.put(2, "Amy Cuddy");
+        index.put(4, "Simon Sinek");
+
+        assertArrayEquals(new long[]{1, 4}, index.search("IN", 0, 10));
+        assertArrayEquals(new long[]{3}, index.search("brené", 0, 10));
+        assertArrayEquals(new long[]{1}, index.search("robin", 0, 10));
+        assertArrayEquals(new long[0], index.search("nobody", 0, 10));
+        // all trigrams present, but not next to each other
+        assertArrayEquals(new long[0], index.search("ken sinek", 0, 10));
+    }
+
+    @Test
+    void search_ShouldContinueAfterTheGivenIdAndStopAtTheLimit() {
+        TrigramIndex index = new TrigramIndex();
+        for (long id = 1; id <= 10; id++) {
+            index.put(id, "Talk " + id);
+        }
+
+        assertArrayEquals(new long[]{1, 2, 3}, index.search("talk", 0, 3));
+        assertArrayEquals(new long[]{4, 5, 6}, index.search("talk", 3, 3));
+        assertArrayEquals(new long[]{10}, index.search("talk", 9, 3));
+        assertArrayEquals(new long[]{2, 3}, index.search("a", 1, 2));
+    }
+
+    @Test
+    void putAndRemove_ShouldKeepTheIndexUpToDate() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(1, "Old title");
+        index.put(1, "New title");
+        index.put(2, "Another old one");
+        index.remove(2);
+
+        assertArrayEquals(new long[0], index.search("old", 0, 10));
+        assertArrayEquals(new long[]{1}, index.search("new", 0, 10));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void search_ShouldMatchABruteForceScan() {
+        Random random = new Random(42);
+        String alphabet = "abcde ";
+        TrigramIndex index = new TrigramIndex();
+        TreeMap<Long, String> texts = new TreeMap<>();
+        for (long id = 1; id <= 2000; id++) {
+            String text = randomText(random, alphabet, 5 + random.nextInt(20));
+            texts.put(id, text);
+            index.put(id, text);
+        }
+        for (long id = 1; id <= 2000; id += 7) {
+            index.remove(id);
+            texts.remove(id);
+        }
+
+        for (int i = 0; i < 200; i++) {
+            String query = randomText(random, alphabet, 1 + random.nextInt(5));
+            long afterId = random.nextInt(1000);
+            long[] expected = texts.tailMap(afterId, false).entrySet().stream()
+                    .filter(e -> e.getValue().toLowerCase(Locale.ROOT).contains(query))
+                    .mapToLong(e -> e.getKey())
+                    .limit(25)
+                    .toArray();
+            assertArrayEquals(expected, index.search(query, afterId, 25), query);
+        }
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmark_SearchLatency() {
+        Random random = new Random(7);
+        TrigramIndex index = new TrigramIndex();
+        String[] words = {"the", "power", "of", "vulnerability", "how", "great", "leaders", "inspire", "action",
+                "do", "schools", "kill", "creativity", "your", "body", "language", "shapes", "who", "you", "are"};
+        for (long id = 1; id <= 1_000_000; id++) {
+            index.put(id, words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)]
+                    + " " + words[random.nextInt(words.length)] + " " + id);
+        }
+
+        int iterations = 2_000;
+        for (String query : new String[]{"vulnerab", "creativity sha", "leaders ins", "999999", "ou"}) {
+            long found = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                found += index.search(query, 0, 51).length;
+            }
+            long nanos = (System.nanoTime() - start) / iterations;
+            assertTrue(found > 0, query);
+            System.out.printf("1M texts, '%s': %.1f us per search%n", query, nanos / 1000.0);
+        }
+    }
+
+    private static String randomText(Random random, String alphabet, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return text.toString();
+    }
+}